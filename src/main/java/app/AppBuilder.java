@@ -1,14 +1,35 @@
 package app;
 
 import java.awt.CardLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 
+import data_access.CachingSentimentDataAccessObject;
+import data_access.CircuitBreaker;
 import data_access.DBPlaylistDataAccessObject;
 import data_access.DBSentimentResultDataAccessObject;
 import data_access.DBUserDataAccessObject;
+import data_access.FallbackSentimentDataAccessObject;
+import data_access.HttpTransport;
+import data_access.LexiconSentimentDataAccessObject;
+import data_access.LyricsCache;
+import data_access.LyricsMissIndex;
+import data_access.LyricsOvhClient;
+import data_access.MapReduceSentimentDataAccessObject;
+import data_access.PreviouslySuccessfulFirstSamplingStrategy;
+import data_access.ResilientLyricsProvider;
+import data_access.RetryPolicy;
+import data_access.SongSentimentDataAccessObject;
+import data_access.SpotifyUserPlaylistsDataAccessObject;
+import data_access.TokenBucketRateLimiter;
 import entity.PlaylistFactory;
 import entity.SentimentResultFactory;
 import entity.UserFactory;
@@ -16,6 +37,9 @@ import interface_adapter.ViewManagerModel;
 import interface_adapter.analysis.AnalysisController;
 import interface_adapter.analysis.AnalysisPresenter;
 import interface_adapter.analysis.AnalysisViewModel;
+import interface_adapter.analyze_library.AnalyzeLibraryController;
+import interface_adapter.analyze_library.AnalyzeLibraryPresenter;
+import interface_adapter.analyze_library.AnalyzeLibraryViewModel;
 import interface_adapter.logged_in.LoggedInViewModel;
 import interface_adapter.logged_in.SelectPlaylistController;
 import interface_adapter.logged_in.SelectPlaylistPresenter;
@@ -24,9 +48,10 @@ import interface_adapter.login.LoginPresenter;
 import interface_adapter.login.LoginViewModel;
 import interface_adapter.logout.LogoutController;
 import interface_adapter.logout.LogoutPresenter;
-import use_case.analyze_playlist.AnalyzePlaylistInputBoundary;
+import use_case.analyze_library.AnalyzeLibraryInteractor;
 import use_case.analyze_playlist.AnalyzePlaylistInteractor;
 import use_case.analyze_playlist.AnalyzePlaylistOutputBoundary;
+import use_case.analyze_playlist.SentimentDataAccessInterface;
 import use_case.login.LoginInputBoundary;
 import use_case.login.LoginInteractor;
 import use_case.login.LoginOutputBoundary;
@@ -40,6 +65,39 @@ import view.LoginView;
 import view.ViewManager;
 
 public class AppBuilder {
+    private static final Duration HTTP_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final int HTTP_THREADS = 8;
+    private static final int LYRICS_MAX_IN_FLIGHT = 4;
+    private static final Duration LYRICS_REQUEST_TIMEOUT = Duration.ofSeconds(8);
+    private static final double LYRICS_HEDGE_PERCENTILE = 0.95;
+    private static final Duration LYRICS_MIN_HEDGE_DELAY = Duration.ofMillis(300);
+    private static final int LYRICS_MAX_BYTES = 64 * 1024;
+    private static final int LYRICS_RATE_BURST = 8;
+    private static final double LYRICS_RATE_PER_SECOND = 4;
+    private static final Duration LYRICS_MAX_QUEUE_WAIT = Duration.ofSeconds(2);
+    private static final int LYRICS_BREAKER_FAILURES = 5;
+    private static final Duration LYRICS_BREAKER_OPEN = Duration.ofSeconds(30);
+    private static final int LYRICS_CACHE_MEMORY_ENTRIES = 500;
+    private static final int LYRICS_CACHE_DISK_ENTRIES = 5000;
+    private static final Duration LYRICS_CACHE_TTL = Duration.ofDays(30);
+    private static final int MISS_INDEX_ENTRIES = 10_000;
+    private static final Duration MISS_INDEX_ENTRY_TTL = Duration.ofDays(7);
+    private static final int SENTIMENT_CACHE_ENTRIES = 1000;
+    private static final int SONG_SENTIMENT_ENTRIES = 20_000;
+    // Upper bound on the lyrics sent per Gemini request, which bounds its latency and cost
+    private static final int GEMINI_MAX_LYRICS_TOKENS = 8000;
+    // Larger lyrics are split into chunks of this size, analyzed this many at a time
+    private static final int GEMINI_CHUNK_TOKENS = 4000;
+    private static final int GEMINI_PARALLEL_CHUNKS = 4;
+    // Analyze All: songs per playlist, songs per Gemini request, and lookups and requests at once
+    private static final int LIBRARY_SONGS_PER_PLAYLIST = 10;
+    private static final int LIBRARY_BATCH_SONGS = 16;
+    private static final int LIBRARY_PARALLELISM = 4;
+    // "gemini", "local", or unset to use Gemini only when GEMINI_API_KEY is set
+    private static final String SENTIMENT_ENGINE_VARIABLE = "SENTIMENT_ENGINE";
+    // "per-song" to analyze a playlist song by song and aggregate; unset to analyze it as a whole
+    private static final String SENTIMENT_MODE_VARIABLE = "SENTIMENT_MODE";
+
     private final JPanel cardPanel = new JPanel();
     private final CardLayout cardLayout = new CardLayout();
     private final UserFactory userFactory = new UserFactory();
@@ -47,12 +105,47 @@ public class AppBuilder {
     private final SentimentResultFactory sentimentResultFactory = new SentimentResultFactory();
     private final ViewManagerModel viewManagerModel = new ViewManagerModel();
     private ViewManager viewManager = new ViewManager(cardPanel, cardLayout, viewManagerModel);
+    // interactors and data access objects whose threads are stopped when the application window closes
+    private final List<AutoCloseable> closeables = new ArrayList<>();
 
-    private final DBUserDataAccessObject userDataAccessObject = new DBUserDataAccessObject(userFactory);
-    private final DBSentimentResultDataAccessObject sentimentDataAccessObject =
-            new DBSentimentResultDataAccessObject(sentimentResultFactory);
+    // One HTTP client for every DAO, so connections are reused across Spotify, lyrics.ovh and Gemini
+    private final HttpTransport httpTransport =
+            new HttpTransport(HTTP_CONNECT_TIMEOUT, HTTP_THREADS);
+    // One retry budget for all Gemini and Spotify requests, so retries stay a small share of the traffic
+    private final RetryPolicy retryPolicy = new RetryPolicy();
+    private final DBUserDataAccessObject userDataAccessObject =
+            new DBUserDataAccessObject(userFactory, httpTransport, retryPolicy);
+    private final SpotifyUserPlaylistsDataAccessObject spotifyUserPlaylistsDataAccessObject =
+            new SpotifyUserPlaylistsDataAccessObject(playlistFactory, httpTransport, retryPolicy);
+    private final LexiconSentimentDataAccessObject lexiconSentimentDataAccessObject =
+            new LexiconSentimentDataAccessObject(sentimentResultFactory);
+    // null when the local engine is the primary one
+    private final DBSentimentResultDataAccessObject geminiSentimentDataAccessObject =
+            useGemini() ? new DBSentimentResultDataAccessObject(sentimentResultFactory, httpTransport,
+                    GEMINI_MAX_LYRICS_TOKENS, retryPolicy) : null;
+    private final SentimentDataAccessInterface sentimentDataAccessObject = createSentimentDataAccessObject();
+    // Each song is analyzed once and reused by every playlist that contains it
+    private final SongSentimentDataAccessObject songSentimentDataAccessObject =
+            geminiSentimentDataAccessObject == null ? null
+                    : new SongSentimentDataAccessObject(sentimentResultFactory,
+                            geminiSentimentDataAccessObject.getModelName(),
+                            geminiSentimentDataAccessObject.getPromptVersion(),
+                            "song_sentiments.json", SONG_SENTIMENT_ENTRIES);
+    private final LyricsOvhClient lyricsClient = new LyricsOvhClient(httpTransport,
+            LYRICS_REQUEST_TIMEOUT, LYRICS_HEDGE_PERCENTILE, LYRICS_MIN_HEDGE_DELAY, LYRICS_MAX_BYTES);
+    private final CircuitBreaker lyricsCircuitBreaker =
+            new CircuitBreaker(LYRICS_BREAKER_FAILURES, LYRICS_BREAKER_OPEN);
+    private final ResilientLyricsProvider lyricsProvider = new ResilientLyricsProvider(lyricsClient,
+            new TokenBucketRateLimiter(LYRICS_RATE_BURST, LYRICS_RATE_PER_SECOND),
+            lyricsCircuitBreaker, LYRICS_MAX_QUEUE_WAIT);
+    private final LyricsCache lyricsCache = new LyricsCache("lyrics_cache",
+            LYRICS_CACHE_MEMORY_ENTRIES, LYRICS_CACHE_DISK_ENTRIES, LYRICS_CACHE_TTL);
+    private final LyricsMissIndex lyricsMissIndex = new LyricsMissIndex("lyrics_miss_index.json",
+            MISS_INDEX_ENTRIES, MISS_INDEX_ENTRY_TTL);
     private final DBPlaylistDataAccessObject spotifyPlaylistDataAccessObject =
-            new DBPlaylistDataAccessObject(playlistFactory);
+            new DBPlaylistDataAccessObject(playlistFactory, lyricsProvider,
+                    lyricsCache, lyricsMissIndex, new PreviouslySuccessfulFirstSamplingStrategy(),
+                    LYRICS_MAX_IN_FLIGHT);
     private final data_access.AnalysisStatsDataAccessObject analysisStatsDataAccessObject =
             new data_access.AnalysisStatsDataAccessObject("analysis_stats.json");
     // New DAO
@@ -60,6 +153,7 @@ public class AppBuilder {
     private LoginViewModel loginViewModel;
     private LoggedInViewModel loggedInViewModel;
     private AnalysisViewModel analysisViewModel;
+    private AnalyzeLibraryViewModel analyzeLibraryViewModel;
     private LoggedInView loggedInView;
     private LoginView loginView;
 
@@ -70,6 +164,52 @@ public class AppBuilder {
         loginViewModel = new LoginViewModel();
         loggedInViewModel = new LoggedInViewModel();
         analysisViewModel = new AnalysisViewModel();
+        analyzeLibraryViewModel = new AnalyzeLibraryViewModel();
+    }
+
+    /**
+     * Decides whether Gemini is the primary sentiment engine, from the SENTIMENT_ENGINE variable.
+     * Without it, Gemini is used when an API key is configured.
+     */
+    private static boolean useGemini() {
+        final String engine = System.getenv(SENTIMENT_ENGINE_VARIABLE);
+        if (engine != null && !engine.isBlank()) {
+            return !"local".equalsIgnoreCase(engine.trim());
+        }
+        final String key = System.getenv("GEMINI_API_KEY");
+        return key != null && !key.isBlank();
+    }
+
+    /**
+     * Decides whether a playlist is analyzed song by song, from the SENTIMENT_MODE variable.
+     * Without it, Gemini judges the playlist's lyrics as a whole.
+     */
+    private static boolean usePerSongMode() {
+        final String mode = System.getenv(SENTIMENT_MODE_VARIABLE);
+        return mode != null && "per-song".equalsIgnoreCase(mode.trim());
+    }
+
+    /**
+     * Builds the sentiment engine: Gemini behind a result cache, with large playlists split into
+     * chunks analyzed concurrently, falling back to the local lexicon engine when Gemini fails,
+     * or the lexicon engine alone.
+     */
+    private SentimentDataAccessInterface createSentimentDataAccessObject() {
+        if (geminiSentimentDataAccessObject == null) {
+            return lexiconSentimentDataAccessObject;
+        }
+        // Identical lyrics analyzed with the same model and prompt are answered without calling Gemini
+        final CachingSentimentDataAccessObject cachedGemini = new CachingSentimentDataAccessObject(
+                geminiSentimentDataAccessObject, sentimentResultFactory,
+                geminiSentimentDataAccessObject.getModelName(),
+                geminiSentimentDataAccessObject.getPromptVersion(),
+                "sentiment_cache.json", SENTIMENT_CACHE_ENTRIES);
+        // Each chunk is cached on its own, so a chunk analyzed before is not sent again
+        final MapReduceSentimentDataAccessObject chunkedGemini = new MapReduceSentimentDataAccessObject(
+                cachedGemini, sentimentResultFactory, GEMINI_CHUNK_TOKENS, GEMINI_PARALLEL_CHUNKS);
+        closeables.add(chunkedGemini);
+        return new FallbackSentimentDataAccessObject(chunkedGemini, lexiconSentimentDataAccessObject,
+                sentimentResultFactory);
     }
 
     /**
@@ -101,16 +241,59 @@ public class AppBuilder {
         // the main view. It just updates the AnalysisViewModel, which the pop-up listens to.
         final AnalyzePlaylistOutputBoundary analyzePlaylistOutputBoundary = new AnalysisPresenter(analysisViewModel);
 
-        final AnalyzePlaylistInputBoundary analyzePlaylistInteractor = new AnalyzePlaylistInteractor(playlistFactory,
+        final AnalyzePlaylistInteractor analyzePlaylistInteractor = new AnalyzePlaylistInteractor(playlistFactory,
                 sentimentResultFactory, sentimentDataAccessObject,
                 analyzePlaylistOutputBoundary, spotifyPlaylistDataAccessObject,
-                analysisStatsDataAccessObject);
+                analysisStatsDataAccessObject,
+                // per-song results are reused across playlists, but only when asked for
+                usePerSongMode() ? songSentimentDataAccessObject : null,
+                // with Gemini as the engine, show the local estimate while Gemini is working
+                geminiSentimentDataAccessObject == null ? null : lexiconSentimentDataAccessObject);
+        closeables.add(analyzePlaylistInteractor);
 
         final AnalysisController analysisController = new AnalysisController(analyzePlaylistInteractor);
         loggedInView.setAnalysisController(analysisController);
         return this;
     }
 
+    /**
+     * Add the analyze library use case, behind the logged in view's Analyze All button.
+     * @return this
+     */
+    public AppBuilder addAnalyzeLibraryUseCase() {
+        final AnalyzeLibraryInteractor analyzeLibraryInteractor = new AnalyzeLibraryInteractor(
+                sentimentResultFactory, sentimentDataAccessObject, songSentimentDataAccessObject,
+                spotifyPlaylistDataAccessObject, analysisStatsDataAccessObject,
+                new AnalyzeLibraryPresenter(analyzeLibraryViewModel),
+                LIBRARY_SONGS_PER_PLAYLIST, LIBRARY_BATCH_SONGS, LIBRARY_PARALLELISM);
+        closeables.add(analyzeLibraryInteractor);
+
+        loggedInView.setAnalyzeLibraryController(new AnalyzeLibraryController(analyzeLibraryInteractor),
+                analyzeLibraryViewModel);
+        return this;
+    }
+
+    /**
+     * Show the lyrics service's circuit breaker state in the logged in view's status label.
+     * @return this
+     */
+    public AppBuilder addLyricsProviderStatus() {
+        lyricsCircuitBreaker.addStateListener(state -> SwingUtilities.invokeLater(() -> {
+            switch (state) {
+                case OPEN:
+                    loggedInViewModel.setStatusMessage("Lyrics service is unavailable; retrying in "
+                            + LYRICS_BREAKER_OPEN.toSeconds() + " seconds.");
+                    break;
+                case HALF_OPEN:
+                    loggedInViewModel.setStatusMessage("Checking whether the lyrics service is back...");
+                    break;
+                default:
+                    loggedInViewModel.setStatusMessage("Lyrics service is available again.");
+            }
+        }));
+        return this;
+    }
+
     /**
      * Add login use case.
      * @return this
@@ -159,6 +342,14 @@ public class AppBuilder {
     }
 
 
+    /**
+     * @return the DAO fetching the user's playlists from Spotify, on the application's shared
+     *         HTTP transport and retry policy
+     */
+    public SpotifyUserPlaylistsDataAccessObject getSpotifyUserPlaylistsDataAccessObject() {
+        return spotifyUserPlaylistsDataAccessObject;
+    }
+
     /**
      * Build method.
      * @return User Login JFrame
@@ -166,6 +357,20 @@ public class AppBuilder {
     public JFrame build() {
         final JFrame application = new JFrame("User Login");
         application.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        // the transport goes last, after everything that may still be using it
+        closeables.add(httpTransport::shutdown);
+        application.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent event) {
+                for (AutoCloseable closeable : closeables) {
+                    try {
+                        closeable.close();
+                    } catch (Exception e) {
+                        System.err.println("Error closing " + closeable + ": " + e.getMessage());
+                    }
+                }
+            }
+        });
 
         application.add(cardPanel);
 
@@ -1,13 +1,21 @@
 package app;
 
+import data_access.HttpTransport;
+
 import javax.swing.JFrame;
+import java.time.Duration;
 
 public class Main {
+    private static final Duration HTTP_KEEP_ALIVE = Duration.ofMinutes(5);
+
     /**
      * Main method.
      * @param args program arguments
      */
     public static void main(String[] args) {
+        // JVM-wide, and only read before the first HttpClient exists
+        HttpTransport.configureKeepAlive(HTTP_KEEP_ALIVE);
+
         final AppBuilder appBuilder = new AppBuilder();
         final JFrame application = appBuilder
                 .addLoginView()
@@ -15,6 +23,8 @@ public class Main {
                 .addSelectPlaylistUseCase()
                 .addLoginUseCase()
                 .addAnalysisUseCase()
+                .addAnalyzeLibraryUseCase()
+                .addLyricsProviderStatus()
                 .addLogoutUseCase()
                 .build();
                 
@@ -2,7 +2,6 @@ package app;
 
 import data_access.SpotifyUserPlaylistsDataAccessObject;
 import entity.Playlist;
-import entity.PlaylistFactory;
 
 import java.io.IOException;
 import java.util.List;
@@ -21,9 +20,8 @@ public class SpotifyPlaylistDemo {
             return;
         }
 
-        PlaylistFactory playlistFactory = new PlaylistFactory();
-        SpotifyUserPlaylistsDataAccessObject dao =
-                new SpotifyUserPlaylistsDataAccessObject(playlistFactory);
+        // wired like the application: shared HTTP transport and retry policy
+        SpotifyUserPlaylistsDataAccessObject dao = new AppBuilder().getSpotifyUserPlaylistsDataAccessObject();
 
         try {
             List<Playlist> playlists = dao.getCurrentUserPlaylists(spotifyUserToken);
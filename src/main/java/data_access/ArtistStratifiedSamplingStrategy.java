@@ -0,0 +1,45 @@
+package data_access;
+
+import com.google.gson.JsonArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Spreads the songs tried across artists: one song per artist in turn, artists in random order.
+ * A playlist dominated by one artist then still gets a sample that covers the others, and a
+ * run of misses from one artist does not use up the whole lookup budget.
+ */
+public class ArtistStratifiedSamplingStrategy implements SongSamplingStrategy {
+
+    @Override
+    public int[] order(JsonArray songs) {
+        final Map<String, List<Integer>> byArtist = new LinkedHashMap<>();
+        for (int i = 0; i < songs.size(); i++) {
+            final String artist = songs.get(i).getAsJsonObject().get("artist").getAsString()
+                    .trim().toLowerCase(Locale.ROOT);
+            byArtist.computeIfAbsent(artist, key -> new ArrayList<>()).add(i);
+        }
+
+        final List<List<Integer>> groups = new ArrayList<>(byArtist.values());
+        Collections.shuffle(groups);
+        for (List<Integer> group : groups) {
+            Collections.shuffle(group);
+        }
+
+        final int[] order = new int[songs.size()];
+        int next = 0;
+        for (int round = 0; next < order.length; round++) {
+            for (List<Integer> group : groups) {
+                if (round < group.size()) {
+                    order[next++] = group.get(round);
+                }
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,223 @@
+package data_access;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+import use_case.analyze_playlist.SentimentDataAccessInterface;
+import use_case.analyze_playlist.SentimentStreamListener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A SentimentDataAccessInterface that remembers the results of another one.
+ *
+ * Results are keyed by a SHA-256 hash of the model name, the prompt version and the combined
+ * lyrics, so the same lyrics analyzed with the same model and prompt are answered from the
+ * cache without a request. When the prompt or the model changes, the key changes with it and
+ * old results are simply never matched again; they fall out as the least recently used entries.
+ * The cache is kept in memory and saved to a JSON file after new results, outside the lock on
+ * the cache; results added by other threads while a save runs are saved together by the next one.
+ */
+public class CachingSentimentDataAccessObject implements SentimentDataAccessInterface {
+
+    private static final Type ENTRIES_TYPE = new TypeToken<LinkedHashMap<String, CachedResult>>() {}.getType();
+
+    private final SentimentDataAccessInterface delegate;
+    private final SentimentResultFactory sentimentResultFactory;
+    private final String modelName;
+    private final String promptVersion;
+    private final Path filePath;
+    private final int maxEntries;
+    private final Gson gson = new Gson();
+    private final Map<String, CachedResult> entries;
+    private final Object saveLock = new Object();
+    private boolean dirty;
+
+    /**
+     * Constructs the cache, loading previously saved results if there are any.
+     * @param delegate the data access object that analyzes lyrics on a cache miss
+     * @param resultFactory the factory that recreates cached SentimentResult entities
+     * @param modelName the model the delegate uses
+     * @param promptVersion a tag that changes whenever the delegate's prompt changes
+     * @param filePath the JSON file results are saved to, or null to keep them in memory only
+     * @param maxEntries the maximum number of results kept
+     */
+    public CachingSentimentDataAccessObject(SentimentDataAccessInterface delegate,
+                                            SentimentResultFactory resultFactory, String modelName,
+                                            String promptVersion, String filePath, int maxEntries) {
+        this.delegate = delegate;
+        this.sentimentResultFactory = resultFactory;
+        this.modelName = modelName;
+        this.promptVersion = promptVersion;
+        this.filePath = filePath == null ? null : Paths.get(filePath);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > CachingSentimentDataAccessObject.this.maxEntries;
+            }
+        };
+        this.entries.putAll(load());
+    }
+
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics) throws IOException {
+        return analyzeSentiment(combinedLyrics, null);
+    }
+
+    /**
+     * Answers from the cache at once, or streams the delegate's result to the listener on a miss.
+     */
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener)
+            throws IOException {
+        final String key = key(combinedLyrics);
+        synchronized (this) {
+            final CachedResult cached = entries.get(key);
+            if (cached != null) {
+                return sentimentResultFactory.create(cached.sentimentWord, cached.sentimentExplanation);
+            }
+        }
+
+        // not holding the lock while the delegate waits on the network
+        final SentimentResult result = delegate.analyzeSentiment(combinedLyrics, listener);
+        if (result.isEstimate()) {
+            // a stand-in for the real analysis; the next call should try again
+            return result;
+        }
+        synchronized (this) {
+            entries.put(key, new CachedResult(result.getSentimentWord(), result.getSentimentExplanation()));
+            dirty = true;
+        }
+        save();
+        return result;
+    }
+
+    /**
+     * Answers the cached playlists from the cache and passes only the others on to the delegate,
+     * as one batch.
+     */
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) throws IOException {
+        return analyzeSentimentBatch(lyricsList, null);
+    }
+
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList, SentimentStreamListener listener)
+            throws IOException {
+        final SentimentResult[] results = new SentimentResult[lyricsList.size()];
+        final List<String> keys = new ArrayList<>(lyricsList.size());
+        final List<Integer> missIndices = new ArrayList<>();
+        final List<String> missLyrics = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < lyricsList.size(); i++) {
+                keys.add(key(lyricsList.get(i)));
+                final CachedResult cached = entries.get(keys.get(i));
+                if (cached != null) {
+                    results[i] = sentimentResultFactory.create(cached.sentimentWord, cached.sentimentExplanation);
+                } else {
+                    missIndices.add(i);
+                    missLyrics.add(lyricsList.get(i));
+                }
+            }
+        }
+        if (missLyrics.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        final List<SentimentResult> analyzed = delegate.analyzeSentimentBatch(missLyrics, listener);
+        synchronized (this) {
+            for (int i = 0; i < missIndices.size(); i++) {
+                final int index = missIndices.get(i);
+                final SentimentResult result = analyzed.get(i);
+                results[index] = result;
+                if (!result.isEstimate()) {
+                    entries.put(keys.get(index),
+                            new CachedResult(result.getSentimentWord(), result.getSentimentExplanation()));
+                    dirty = true;
+                }
+            }
+        }
+        save();
+        return Arrays.asList(results);
+    }
+
+    private String key(String combinedLyrics) {
+        return LyricsCache.sha256(modelName + "\n" + promptVersion + "\n" + combinedLyrics);
+    }
+
+    /**
+     * Writes the entries to the file if they changed since the last write. The file is written
+     * outside the lock on the entries, so lookups are not blocked while it is written, and results
+     * added during a write are all written by the next one.
+     */
+    private void save() {
+        if (filePath == null) {
+            return;
+        }
+        synchronized (saveLock) {
+            final Map<String, CachedResult> snapshot;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                snapshot = new LinkedHashMap<>(entries);
+                dirty = false;
+            }
+            try {
+                final Path directory = filePath.toAbsolutePath().getParent();
+                final Path temp = Files.createTempFile(directory, "sentiment_cache", ".tmp");
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    gson.toJson(snapshot, ENTRIES_TYPE, writer);
+                }
+                Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                synchronized (this) {
+                    dirty = true;
+                }
+                System.err.println("Error saving sentiment cache: " + e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, CachedResult> load() {
+        if (filePath == null || !Files.exists(filePath)) {
+            return Map.of();
+        }
+        try (Reader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            final Map<String, CachedResult> loaded = gson.fromJson(reader, ENTRIES_TYPE);
+            return loaded == null ? Map.of() : loaded;
+        } catch (IOException | JsonParseException e) {
+            // unreadable cache file: start empty, it is rewritten on the next result
+            return Map.of();
+        }
+    }
+
+    /**
+     * One cached analysis, stored as JSON.
+     */
+    private static class CachedResult {
+        private final String sentimentWord;
+        private final String sentimentExplanation;
+
+        CachedResult(String sentimentWord, String sentimentExplanation) {
+            this.sentimentWord = sentimentWord;
+            this.sentimentExplanation = sentimentExplanation;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package data_access;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker for a remote service.
+ *
+ * CLOSED: requests go through; after failureThreshold failures in a row the breaker opens.
+ * OPEN: requests are refused at once, without touching the network, for openDuration.
+ * HALF_OPEN: a single trial request is let through; if it succeeds the breaker closes,
+ * if it fails the breaker opens again.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+    private final List<Consumer<State>> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * Constructs a CircuitBreaker.
+     * @param failureThreshold the number of failures in a row that opens the breaker
+     * @param openDuration how long the breaker stays open before letting a trial request through
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a CircuitBreaker that reads the time from the given clock.
+     * @param failureThreshold the number of failures in a row that opens the breaker
+     * @param openDuration how long the breaker stays open before letting a trial request through
+     * @param clock the clock the open duration is measured with
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Asks whether a request may be sent now. A caller that gets true must later report the
+     * request with recordSuccess, recordFailure or release.
+     * @return true if the request may be sent
+     */
+    public boolean allowRequest() {
+        final boolean allowed;
+        State changedTo = null;
+        synchronized (this) {
+            if (state == State.OPEN && clock.millis() - openedAt >= openDuration.toMillis()) {
+                state = State.HALF_OPEN;
+                changedTo = state;
+            }
+            if (state == State.CLOSED) {
+                allowed = true;
+            } else if (state == State.HALF_OPEN && !trialInFlight) {
+                trialInFlight = true;
+                allowed = true;
+            } else {
+                allowed = false;
+            }
+        }
+        notifyListeners(changedTo);
+        return allowed;
+    }
+
+    /**
+     * Reports a request that got an answer from the service.
+     */
+    public void recordSuccess() {
+        State changedTo = null;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            trialInFlight = false;
+            if (state != State.CLOSED) {
+                state = State.CLOSED;
+                changedTo = state;
+            }
+        }
+        notifyListeners(changedTo);
+    }
+
+    /**
+     * Reports a request that failed because of the service (error, timeout, server error).
+     */
+    public void recordFailure() {
+        State changedTo = null;
+        synchronized (this) {
+            consecutiveFailures++;
+            trialInFlight = false;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAt = clock.millis();
+                changedTo = state;
+            }
+        }
+        notifyListeners(changedTo);
+    }
+
+    /**
+     * Reports a request that was abandoned by the caller and says nothing about the service.
+     */
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the milliseconds until an open breaker lets a trial request through, or 0
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDuration.toMillis() - (clock.millis() - openedAt));
+    }
+
+    /**
+     * Registers a listener called with the new state every time the breaker changes state.
+     * Listeners run on the thread that caused the change.
+     * @param listener the listener to add
+     */
+    public void addStateListener(Consumer<State> listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(State newState) {
+        if (newState == null) {
+            return;
+        }
+        for (Consumer<State> listener : listeners) {
+            listener.accept(newState);
+        }
+    }
+}
@@ -1,84 +1,332 @@
 package data_access;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.concurrent.ThreadLocalRandom;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonSyntaxException;
 import entity.PlaylistFactory;
+import entity.SongCanonicalizer;
+import use_case.analyze_playlist.LyricsProgressListener;
 import use_case.analyze_playlist.SpotifyPlaylistDataAccessInterface;
 
 public class DBPlaylistDataAccessObject implements SpotifyPlaylistDataAccessInterface {
 
     private static final int MAX_SONGS = 5;
-    private static final int SUCCESS_CODE = 200;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MEMORY_CACHE_ENTRIES = 500;
+    private static final Duration CACHE_TTL = Duration.ofDays(30);
+    private static final int MISS_INDEX_ENTRIES = 10_000;
+    private static final Duration MISS_TTL = Duration.ofDays(7);
+    private static final LyricsProgressListener NO_PROGRESS = new LyricsProgressListener() {
+        @Override
+        public void onLookupPlanned(int songsToTry, int lyricsWanted) {
+        }
+
+        @Override
+        public void onSongLookedUp(boolean found, long lyricsBytes) {
+        }
+    };
     private final PlaylistFactory playlistFactory;
+    private final LyricsProvider lyricsProvider;
+    private final LyricsCache lyricsCache;
+    private final LyricsMissIndex missIndex;
+    private final SongSamplingStrategy samplingStrategy;
+    private final int maxInFlight;
+    private final Map<String, SharedLookup> sharedLookups = new ConcurrentHashMap<>();
 
-    public DBPlaylistDataAccessObject(PlaylistFactory playlistFactory) {
+    public DBPlaylistDataAccessObject(PlaylistFactory playlistFactory, HttpTransport transport) {
+        this(playlistFactory, new LyricsOvhClient(transport, DEFAULT_REQUEST_TIMEOUT),
+                new LyricsCache(null, MEMORY_CACHE_ENTRIES, 0, CACHE_TTL),
+                new LyricsMissIndex(null, MISS_INDEX_ENTRIES, MISS_TTL),
+                new RandomSamplingStrategy(),
+                DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Constructs the DAO with a lyrics cache, a miss index, a song sampling strategy
+     * and a limit on concurrent lyrics lookups.
+     * @param playlistFactory the factory for Playlist entities
+     * @param lyricsProvider the provider used to look up lyrics that are not cached
+     * @param lyricsCache the cache checked before any lyrics request is sent
+     * @param missIndex the index of songs known to have no lyrics, which are never requested
+     * @param samplingStrategy decides in which order songs are tried
+     * @param maxInFlight the maximum number of lyrics requests sent at the same time (1 = one after another)
+     * @throws IllegalArgumentException if maxInFlight is less than 1
+     */
+    public DBPlaylistDataAccessObject(PlaylistFactory playlistFactory, LyricsProvider lyricsProvider,
+                                      LyricsCache lyricsCache, LyricsMissIndex missIndex,
+                                      SongSamplingStrategy samplingStrategy, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1, got " + maxInFlight);
+        }
         this.playlistFactory = playlistFactory;
+        this.lyricsProvider = lyricsProvider;
+        this.lyricsCache = lyricsCache;
+        this.missIndex = missIndex;
+        this.samplingStrategy = samplingStrategy;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Fetches lyrics for up to MAX_SONGS songs, tried in the order given by the sampling strategy.
+     * Songs already in the lyrics cache are used first, so repeat analyses send no requests,
+     * and songs in the miss index are skipped. Both are keyed by the song's canonical form, so
+     * "Song - Remastered 2011" and "Song" share one entry. The rest are looked up with up to maxInFlight
+     * requests at once; as soon as MAX_SONGS lyrics have been found, the lookups still in flight
+     * are cancelled. A song whose lookup is already in flight for another caller joins that lookup.
+     * @param songs JsonArray get from Playlist
+     * @return A JsonArray of songs' title, artist and lyrics
+     * @throws IOException if no lyrics were found because the provider refused every lookup,
+     *         or if the thread was interrupted, which cancels the lookups in flight
+     */
+    @Override
+    public JsonArray getLyrics(JsonArray songs) throws IOException {
+        return getLyrics(songs, NO_PROGRESS);
     }
 
+    /**
+     * Fetches lyrics as getLyrics(songs) does, telling the listener about each song taken from
+     * the cache or looked up over the network. Songs in the miss index are not counted, and
+     * lookups cancelled once enough lyrics were found are not reported.
+     */
     @Override
-    public JsonArray getLyrics(JsonArray songs) {
+    public JsonArray getLyrics(JsonArray songs, LyricsProgressListener listener) throws IOException {
         final JsonArray songsInfo = new JsonArray();
-        final JsonArray songsCopy = songs.deepCopy();
-        final HttpClient client = HttpClient.newHttpClient();
+        final List<JsonObject> uncached = new ArrayList<>();
+        final int[] order = samplingStrategy.order(songs);
+        listener.onLookupPlanned(order.length, MAX_SONGS);
 
-        while (songsCopy.size() != 0 && songsInfo.size() < MAX_SONGS) {
-            final int index = ThreadLocalRandom.current().nextInt(0, songsCopy.size());
-            final JsonObject song = songsCopy.get(index).getAsJsonObject();
-            songsCopy.remove(index);
+        for (int i = 0; i < order.length && songsInfo.size() < MAX_SONGS; i++) {
+            final JsonObject song = songs.get(order[i]).getAsJsonObject();
             final String artist = song.get("artist").getAsString();
             final String title = song.get("title").getAsString();
+            final String lyrics = lyricsCache.get(artist, title);
+            if (lyrics != null) {
+                samplingStrategy.recordOutcome(artist, title, true);
+                songsInfo.add(songInfo(artist, title, lyrics));
+                listener.onSongLookedUp(true, utf8Length(lyrics));
+            }
+            else if (!missIndex.isKnownMiss(artist, title)) {
+                uncached.add(song);
+            }
+        }
 
-            try {
-                final String artistCopy = URLEncoder.encode(artist, "UTF-8");
-                final String titleCopy = URLEncoder.encode(title, "UTF-8");
-
-                final String url = String.format("https://api.lyrics.ovh/v1/%s/%s", artistCopy, titleCopy);
+        if (songsInfo.size() < MAX_SONGS) {
+            final int rejected = fetchUncachedLyrics(uncached, songsInfo, listener);
+            missIndex.save();
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Lyrics lookup interrupted.");
+            }
+            if (songsInfo.size() == 0 && rejected > 0) {
+                throw new IOException("The lyrics service is unavailable right now; please try again shortly.");
+            }
+        }
+        return songsInfo;
+    }
 
-                final HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .GET()
-                        .header("Content-Type", "application/json")
-                        .build();
+    /**
+     * Looks up the given songs over the network until songsInfo holds MAX_SONGS entries.
+     * @return the number of lookups the provider refused without sending a request
+     */
+    private int fetchUncachedLyrics(List<JsonObject> candidates, JsonArray songsInfo,
+                                    LyricsProgressListener listener) {
+        final BlockingQueue<JsonObject> completed = new LinkedBlockingQueue<>();
+        final AtomicInteger rejected = new AtomicInteger();
+        final List<CompletableFuture<LyricsLookup>> launched = new ArrayList<>();
+        int next = 0;
+        int inFlight = 0;
 
-                final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        try {
+            while (songsInfo.size() < MAX_SONGS && (next < candidates.size() || inFlight > 0)) {
+                // never ask for more songs than we still need
+                while (next < candidates.size() && inFlight < Math.min(maxInFlight, MAX_SONGS - songsInfo.size())) {
+                    launched.add(fetchLyrics(candidates.get(next++), completed, rejected));
+                    inFlight++;
+                }
 
-                if (response.statusCode() != SUCCESS_CODE) {
-                    continue;
+                final JsonObject result = completed.take();
+                inFlight--;
+                if (result.has("lyrics")) {
+                    songsInfo.add(result);
+                    listener.onSongLookedUp(true, utf8Length(result.get("lyrics").getAsString()));
+                }
+                else {
+                    listener.onSongLookedUp(false, 0);
                 }
+            }
+        }
+        catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            for (CompletableFuture<LyricsLookup> lookup : launched) {
+                lookup.cancel(true);
+            }
+        }
+        return rejected.get();
+    }
 
-                final JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
+    /**
+     * Starts one lyrics lookup without blocking. When it finishes, a song object is put on the
+     * completed queue: with a "lyrics" field on success, without one on any kind of miss or error.
+     * Found lyrics are written to the cache, and songs the provider has no lyrics for to the miss index.
+     * A song is looked up under its raw artist and title first, and only if the provider has no
+     * lyrics for that, under its canonical form.
+     */
+    private CompletableFuture<LyricsLookup> fetchLyrics(JsonObject song, BlockingQueue<JsonObject> completed,
+                                                        AtomicInteger rejected) {
+        final String artist = song.get("artist").getAsString();
+        final String title = song.get("title").getAsString();
 
-                if (json.has("error")) {
-                    continue;
+        final CompletableFuture<LyricsLookup> lookup = sharedLookup(artist, title);
+        lookup.whenComplete((result, error) -> {
+            final LyricsLookup outcome = error == null ? result : LyricsLookup.failed();
+            if (outcome.isFound()) {
+                lyricsCache.put(artist, title, outcome.getLyrics());
+                samplingStrategy.recordOutcome(artist, title, true);
+            }
+            else if (outcome.getStatus() == LyricsLookup.Status.NOT_FOUND) {
+                missIndex.recordMiss(artist, title);
+                samplingStrategy.recordOutcome(artist, title, false);
+            }
+            else if (outcome.getStatus() == LyricsLookup.Status.REJECTED) {
+                rejected.incrementAndGet();
+            }
+            completed.add(songInfo(artist, title, outcome.getLyrics()));
+        });
+        return lookup;
+    }
+
+    /**
+     * Joins the lookup of the same artist and title that is already in flight, e.g. for another
+     * analysis of the same playlist running at the same time, or starts a new one. Each caller gets
+     * its own future; the shared lookup is only cancelled once every caller has cancelled theirs.
+     */
+    private CompletableFuture<LyricsLookup> sharedLookup(String artist, String title) {
+        final String key = artist + "\n" + title;
+        while (true) {
+            final SharedLookup created = new SharedLookup();
+            final SharedLookup existing = sharedLookups.putIfAbsent(key, created);
+            final SharedLookup shared = existing == null ? created : existing;
+            final CompletableFuture<LyricsLookup> view = shared.subscribe();
+            if (existing == null) {
+                created.result.whenComplete((outcome, error) -> sharedLookups.remove(key, created));
+                created.start(lookupWithFallback(artist, title));
+            }
+            if (view != null) {
+                return view;
+            }
+            // every earlier caller cancelled just now; that lookup is being dropped, so start another
+            sharedLookups.remove(key, shared);
+        }
+    }
+
+    /**
+     * One lyrics lookup shared by everyone asking for the same song while it is in flight.
+     */
+    private static final class SharedLookup {
+        private final CompletableFuture<LyricsLookup> result = new CompletableFuture<>();
+        private CompletableFuture<LyricsLookup> source;
+        private int subscribers;
+        private boolean abandoned;
+
+        /**
+         * @return a future completed with the shared result, or null if the lookup was abandoned
+         */
+        synchronized CompletableFuture<LyricsLookup> subscribe() {
+            if (abandoned) {
+                return null;
+            }
+            subscribers++;
+            final CompletableFuture<LyricsLookup> view = new CompletableFuture<>();
+            result.whenComplete((outcome, error) -> complete(view, outcome, error));
+            view.whenComplete((outcome, error) -> {
+                if (view.isCancelled()) {
+                    unsubscribe();
                 }
+            });
+            return view;
+        }
 
-                final String lyrics = json.get("lyrics").getAsString();
-                if (lyrics == null || lyrics.isBlank()) {
-                    continue;
+        void start(CompletableFuture<LyricsLookup> lookup) {
+            synchronized (this) {
+                source = lookup;
+                if (abandoned) {
+                    lookup.cancel(true);
                 }
+            }
+            lookup.whenComplete((outcome, error) -> complete(result, outcome, error));
+        }
 
-                final JsonObject songInfo = new JsonObject();
-                songInfo.addProperty("artist", artist);
-                songInfo.addProperty("title", title);
-                songInfo.addProperty("lyrics", lyrics);
-                songsInfo.add(songInfo);
+        private synchronized void unsubscribe() {
+            subscribers--;
+            if (subscribers == 0 && !result.isDone()) {
+                abandoned = true;
+                if (source != null) {
+                    source.cancel(true);
+                }
+                result.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Looks up the raw form of a song, then its canonical form if the raw form has no lyrics.
+     * Cancelling the returned future cancels whichever lookup is in flight.
+     */
+    private CompletableFuture<LyricsLookup> lookupWithFallback(String artist, String title) {
+        final CompletableFuture<LyricsLookup> result = new CompletableFuture<>();
+        final CompletableFuture<LyricsLookup> raw = lyricsProvider.lookup(artist, title);
+        result.whenComplete((outcome, error) -> raw.cancel(true));
 
+        raw.whenComplete((outcome, error) -> {
+            if (error == null && outcome.getStatus() == LyricsLookup.Status.NOT_FOUND
+                    && SongCanonicalizer.hasCanonicalVariant(artist, title) && !result.isDone()) {
+                final CompletableFuture<LyricsLookup> canonical = lyricsProvider.lookup(
+                        SongCanonicalizer.canonicalArtist(artist), SongCanonicalizer.canonicalTitle(title));
+                result.whenComplete((retryOutcome, retryError) -> canonical.cancel(true));
+                canonical.whenComplete((retryOutcome, retryError) -> complete(result, retryOutcome, retryError));
             }
-            catch (IOException | InterruptedException | JsonSyntaxException | IllegalStateException error) {
-            // ignore errors and continue
+            else {
+                complete(result, outcome, error);
             }
+        });
+        return result;
+    }
+
+    private static void complete(CompletableFuture<LyricsLookup> result, LyricsLookup outcome, Throwable error) {
+        if (error == null) {
+            result.complete(outcome);
         }
-        return songsInfo;
+        else {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private static JsonObject songInfo(String artist, String title, String lyrics) {
+        final JsonObject songInfo = new JsonObject();
+        songInfo.addProperty("artist", artist);
+        songInfo.addProperty("title", title);
+        if (lyrics != null) {
+            songInfo.addProperty("lyrics", lyrics);
+        }
+        return songInfo;
+    }
+
+    private static long utf8Length(String lyrics) {
+        return lyrics.getBytes(StandardCharsets.UTF_8).length;
     }
 
     @Override
@@ -86,11 +334,12 @@ public class DBPlaylistDataAccessObject implements SpotifyPlaylistDataAccessInte
         final StringBuilder builder = new StringBuilder();
 
         for (int i = 0; i < songsInfo.size(); i++) {
-            final String lyric = songsInfo.get(i)
-                                .getAsJsonObject()
-                                .get("lyrics")
-                                .getAsString();
+            final JsonObject song = songsInfo.get(i).getAsJsonObject();
+            final String lyric = song.get("lyrics").getAsString();
 
+            builder.append(SONG_HEADER_PREFIX)
+                    .append(song.get("title").getAsString()).append(" - ")
+                    .append(song.get("artist").getAsString()).append("\n");
             builder.append(lyric).append("\n");
         }
         return builder.toString();
@@ -1,18 +1,31 @@
 package data_access;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import entity.SentimentResult;
 import entity.SentimentResultFactory;
 import use_case.analyze_playlist.SentimentDataAccessInterface;
+import use_case.analyze_playlist.SentimentStreamListener;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Concrete implementation of the SentimentDataAccessInterface that uses the Gemini API
@@ -21,21 +34,59 @@ import java.util.Map;
  */
 public class DBSentimentResultDataAccessObject implements SentimentDataAccessInterface {
 
-    private static final String API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash-preview-09-2025:generateContent";
+    private static final String MODEL_NAME = "gemini-2.5-flash-preview-09-2025";
+    private static final String API_URL = "https://generativelanguage.googleapis.com/v1beta/models/" + MODEL_NAME + ":generateContent";
+    private static final String STREAM_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/" + MODEL_NAME
+            + ":streamGenerateContent?alt=sse";
+    private static final int DEFAULT_MAX_LYRICS_TOKENS = 8000;
+    private static final int REQUEST_OVERHEAD_BYTES = 2048;
+    private static final int MAX_BATCH_PLAYLISTS = 16;
     private final HttpClient httpClient;
-    private final Gson gson;
+    private final GeminiResponseParser responseParser;
     private final String apiKey;
     private final SentimentResultFactory sentimentResultFactory; // New Factory field
+    private final GeminiPromptBuilder promptBuilder;
+    private final RetryPolicy retryPolicy;
 
     /**
      * Constructs the data access object, loading the API key and accepting a factory dependency.
      *
      * @param resultFactory The factory responsible for creating SentimentResult entities.
+     * @param transport The shared HTTP transport.
      * @throws IllegalArgumentException if the GEMINI_API_KEY environment variable is not set.
      */
-    public DBSentimentResultDataAccessObject(SentimentResultFactory resultFactory) {
-        this.httpClient = HttpClient.newHttpClient();
-        this.gson = new Gson();
+    public DBSentimentResultDataAccessObject(SentimentResultFactory resultFactory, HttpTransport transport) {
+        this(resultFactory, transport, DEFAULT_MAX_LYRICS_TOKENS);
+    }
+
+    /**
+     * Constructs the data access object with a limit on the size of the lyrics sent per request.
+     *
+     * @param resultFactory The factory responsible for creating SentimentResult entities.
+     * @param transport The shared HTTP transport.
+     * @param maxLyricsTokens The token budget for the lyrics in one request; longer lyrics are trimmed.
+     * @throws IllegalArgumentException if the GEMINI_API_KEY environment variable is not set.
+     */
+    public DBSentimentResultDataAccessObject(SentimentResultFactory resultFactory, HttpTransport transport,
+                                             int maxLyricsTokens) {
+        this(resultFactory, transport, maxLyricsTokens, new RetryPolicy());
+    }
+
+    /**
+     * Constructs the data access object with a retry policy for throttled and failed requests.
+     *
+     * @param resultFactory The factory responsible for creating SentimentResult entities.
+     * @param transport The shared HTTP transport.
+     * @param maxLyricsTokens The token budget for the lyrics in one request; longer lyrics are trimmed.
+     * @param retryPolicy The policy deciding whether and when a failed request is sent again.
+     * @throws IllegalArgumentException if the GEMINI_API_KEY environment variable is not set.
+     */
+    public DBSentimentResultDataAccessObject(SentimentResultFactory resultFactory, HttpTransport transport,
+                                             int maxLyricsTokens, RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        this.promptBuilder = new GeminiPromptBuilder(maxLyricsTokens);
+        this.httpClient = transport.getClient();
+        this.responseParser = new GeminiResponseParser(resultFactory);
         this.sentimentResultFactory = resultFactory;
 
         String key = System.getenv("GEMINI_API_KEY");
@@ -49,6 +100,36 @@ public class DBSentimentResultDataAccessObject implements SentimentDataAccessInt
         this.apiKey = key;
     }
 
+    public String getModelName() {
+        return MODEL_NAME;
+    }
+
+    /**
+     * Identifies the prompts sent with the lyrics: the system instructions, the user queries and
+     * the response schemas of both the single and the batch request, and the lyrics token budget.
+     * Any change to them gives a different version, so cached results produced with an older
+     * prompt are not reused.
+     * @return a short hash of the requests built for empty lyrics and for an empty batch
+     */
+    public String getPromptVersion() {
+        try {
+            return LyricsCache.sha256(writeRequestBody("").asString()
+                            + writeBatchRequestBody(List.of()).asString()
+                            + promptBuilder.getMaxLyricsTokens())
+                    .substring(0, 16);
+        } catch (IOException e) {
+            // only thrown by the underlying stream, which is in memory
+            throw new IllegalStateException("Could not write the request template", e);
+        }
+    }
+
+    /**
+     * @return the prompt builder, whose toString reports how often and how much lyrics were trimmed
+     */
+    public GeminiPromptBuilder getPromptBuilder() {
+        return promptBuilder;
+    }
+
     /**
      * Constructs the system instruction that forces the Gemini model to respond
      * with a JSON object matching the required schema for Sentiment analysis.
@@ -61,6 +142,18 @@ public class DBSentimentResultDataAccessObject implements SentimentDataAccessInt
                 "Identify the single most descriptive **sentiment word** or two that capture the overall feel of the lyrics.";
     }
 
+    /**
+     * Constructs the system instruction for a batch request, which asks for one JSON object
+     * per playlist in a JSON array.
+     * @return The system instruction as a String.
+     */
+    private String createBatchSystemInstruction() {
+        return "You are a professional music analysis engine. Analyze the combined lyrics of each of the following playlists on its own. " +
+                "Your response MUST be a single JSON array with one object per playlist, in the order given, that adheres strictly to the following schema. " +
+                "Do not include any other text or explanation outside of the JSON array. " +
+                "For each playlist, identify the single most descriptive **sentiment word** or two that capture the overall feel of its lyrics.";
+    }
+
     /**
      * Calls the Gemini API to analyze the sentiment of the provided lyrics.
      *
@@ -70,123 +163,424 @@ public class DBSentimentResultDataAccessObject implements SentimentDataAccessInt
      */
     @Override
     public SentimentResult analyzeSentiment(String combinedLyrics) throws IOException {
-        // ... (API Payload construction remains the same)
-        String requestBody = getString(combinedLyrics);
+        return post(writeRequestBody(combinedLyrics), responseParser::parse);
+    }
+
+    /**
+     * Calls the streaming endpoint, which sends the generated text as server-sent events while the
+     * model is still writing it, and passes the word and explanation received so far to the
+     * listener after each event. The listener thus hears from the model after its first tokens
+     * instead of after the whole answer.
+     *
+     * @param combinedLyrics A single String containing the concatenated lyrics.
+     * @param listener Receives the partial result, or null to call the regular endpoint.
+     * @return the complete SentimentResult
+     * @throws IOException If a network or API communication error occurs, or if parsing fails.
+     */
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener)
+            throws IOException {
+        if (listener == null) {
+            return analyzeSentiment(combinedLyrics);
+        }
+        return responseParser.parseResult(postStreaming(writeRequestBody(combinedLyrics), listener));
+    }
 
+    /**
+     * Analyzes several playlists in as few requests as possible. Playlists are packed into one
+     * request, with an array response schema, until the next one would take the lyrics over the
+     * token budget; the system instruction and schema are then paid for once per batch instead
+     * of once per playlist. A playlist that is over budget on its own is sent alone and trimmed.
+     *
+     * @param lyricsList the combined lyrics of each playlist
+     * @return one SentimentResult per playlist, in the same order
+     * @throws IOException If a network or API communication error occurs, or if parsing fails.
+     */
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) throws IOException {
+        return analyzeSentimentBatch(lyricsList, null);
+    }
 
-        // --- 2. Execute the HTTP Request ---
+    /**
+     * Analyzes several playlists like analyzeSentimentBatch(List), streaming each response when a
+     * listener is given. The listener hears about the result currently being written.
+     */
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList, SentimentStreamListener listener)
+            throws IOException {
+        final List<SentimentResult> results = new ArrayList<>(lyricsList.size());
+        for (List<String> batch : splitBatches(lyricsList)) {
+            if (batch.size() == 1) {
+                results.add(analyzeSentiment(batch.get(0), listener));
+            } else if (listener == null) {
+                results.addAll(post(writeBatchRequestBody(batch),
+                        body -> responseParser.parseBatch(body, batch.size())));
+            } else {
+                results.addAll(responseParser.parseBatchResult(
+                        postStreaming(writeBatchRequestBody(batch), listener), batch.size()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Groups consecutive playlists so that each group's lyrics fit the token budget together.
+     */
+    private List<List<String>> splitBatches(List<String> lyricsList) {
+        final List<List<String>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        long batchTokens = 0;
+        for (String lyrics : lyricsList) {
+            final int tokens = GeminiPromptBuilder.estimateTokens(lyrics);
+            if (!batch.isEmpty() && (batchTokens + tokens > promptBuilder.getMaxLyricsTokens()
+                    || batch.size() == MAX_BATCH_PLAYLISTS)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchTokens = 0;
+            }
+            batch.add(lyrics);
+            batchTokens += tokens;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Sends a request body to the API and hands the response to the given handler.
+     */
+    private <T> T post(RequestBody requestBody, ResponseHandler<T> handler) throws IOException {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(API_URL + "?key=" + this.apiKey))
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .POST(requestBody.publisher())
                 .build();
 
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response =
+                    retryPolicy.send(httpClient, request, HttpResponse.BodyHandlers.ofInputStream());
 
-            if (response.statusCode() != 200) {
-                String error = "Gemini API Error (Status: " + response.statusCode() + "): " + response.body();
-                throw new IOException(error);
-            }
+            try (Reader body = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+                if (response.statusCode() != 200) {
+                    StringWriter errorBody = new StringWriter();
+                    body.transferTo(errorBody);
+                    String error = "Gemini API Error (Status: " + response.statusCode() + "): " + errorBody;
+                    throw new GeminiResponseException(response.statusCode(), error);
+                }
 
-            // --- 3. Parse the API Response ---
-            return parseGeminiResponse(response.body());
+                // Parse the API Response as it arrives
+                return handler.handle(body);
+            }
 
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new IOException("API request interrupted.", e);
-        }
-    }
-
-    private String getString(String combinedLyrics) {
-        String systemInstruction = createSystemInstruction();
-        String userQuery = "Analyze the sentiment of this playlist's lyrics and explain your finding: \n\n--- LYRICS ---\n\n" + combinedLyrics;
-
-        String escapedUserQuery = userQuery.replace("\"", "\\\"").replace("\n", "\\n");
-        String escapedSystemInstruction = systemInstruction.replace("\"", "\\\"");
-
-        String requestBody = String.format("""
-            {
-                "contents": [
-                    { "parts": [ { "text": "%s" } ] }
-                ],
-                "systemInstruction": { "parts": [ { "text": "%s" } ] },
-                "generationConfig": {
-                    "responseMimeType": "application/json",
-                    "responseSchema": {
-                        "type": "OBJECT",
-                        "properties": {
-                            "sentimentWord": { "type": "STRING", "description": "A single word or two describing the sentiment." },
-                            "sentimentExplanation": { "type": "STRING", "description": "A short paragraph explaining the sentiment." }
-                        },
-                        "required": ["sentimentWord", "sentimentExplanation"]
+            final InterruptedIOException interrupted = new InterruptedIOException("API request interrupted.");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+    }
+
+    /**
+     * Sends a request body to the streaming endpoint and reads the server-sent events as they
+     * arrive. Each event's data is a response carrying the next piece of the generated text.
+     * @return the complete generated text
+     */
+    private String postStreaming(RequestBody requestBody, SentimentStreamListener listener) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(STREAM_API_URL + "&key=" + this.apiKey))
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(requestBody.publisher())
+                .build();
+
+        try {
+            HttpResponse<Stream<String>> response =
+                    retryPolicy.send(httpClient, request, HttpResponse.BodyHandlers.ofLines());
+
+            try (Stream<String> lines = response.body()) {
+                if (response.statusCode() != 200) {
+                    String error = "Gemini API Error (Status: " + response.statusCode() + "): "
+                            + lines.collect(Collectors.joining("\n"));
+                    throw new GeminiResponseException(response.statusCode(), error);
+                }
+
+                final StringBuilder text = new StringBuilder();
+                final StringBuilder event = new StringBuilder();
+                final Iterator<String> iterator = lines.iterator();
+                while (iterator.hasNext()) {
+                    final String line = iterator.next();
+                    if (line.isEmpty()) {
+                        // a blank line ends an event
+                        readEvent(event, text, listener);
+                    } else if (line.startsWith("data:")) {
+                        if (event.length() > 0) {
+                            event.append('\n');
+                        }
+                        event.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
                     }
+                    // other fields (event, id, retry) and comments are not used by this API
                 }
+                readEvent(event, text, listener);
+
+                if (text.toString().isBlank()) {
+                    throw GeminiResponseParser.emptyText(null);
+                }
+                return text.toString();
+            } catch (UncheckedIOException e) {
+                // reading the lines lazily wraps network errors
+                throw e.getCause();
             }
-            """, escapedUserQuery, escapedSystemInstruction);
-        return requestBody;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException interrupted = new InterruptedIOException("API request interrupted.");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
     }
 
     /**
-     * Parses the complex nested JSON response from the Gemini API and extracts the
-     * structured Sentiment JSON, then uses the factory to convert it into a SentimentResult entity.
-     * @param jsonResponse The raw JSON string from the API.
-     * @return A SentimentResult entity (now focused on descriptive Sentiment).
-     * @throws IOException If the JSON structure is unexpected or parsing fails.
+     * Appends the text carried by a complete event and reports the result so far.
      */
-    private SentimentResult parseGeminiResponse(String jsonResponse) throws IOException {
-        try {
-            // Step 1: Parse the top-level API response structure
-            Map<String, Object> responseMap = gson.fromJson(jsonResponse, new TypeToken<Map<String, Object>>() {}.getType());
-
-            // Step 2: Navigate to the content part containing the generated JSON text
-            @SuppressWarnings("unchecked")
-            List<Object> candidates = (List<Object>) responseMap.get("candidates");
-            if (candidates == null || candidates.isEmpty()) {
-                throw new IOException("API response missing 'candidates'. Response: " + jsonResponse);
+    private void readEvent(StringBuilder event, StringBuilder text, SentimentStreamListener listener)
+            throws IOException {
+        if (event.length() == 0) {
+            return;
+        }
+        final String chunk = responseParser.readStreamChunk(new StringReader(event.toString()));
+        event.setLength(0);
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        text.append(chunk);
+        final String[] partial = GeminiResponseParser.readPartialResult(text.toString());
+        listener.onPartialResult(partial[0], partial[1]);
+    }
+
+    /**
+     * Reads a successful response body.
+     */
+    private interface ResponseHandler<T> {
+        T handle(Reader body) throws IOException;
+    }
+
+    /**
+     * Writes the request body with a streaming JSON writer, escaping the lyrics in a single pass
+     * straight into the buffer that is sent. The instructions and the lyrics are separate text
+     * parts, so the lyrics are never copied into a larger prompt string first.
+     * @param combinedLyrics the lyrics to analyze
+     * @return the encoded body
+     */
+    private RequestBody writeRequestBody(String combinedLyrics) throws IOException {
+        final GeminiPromptBuilder.FittedLyrics fitted = promptBuilder.fit(combinedLyrics);
+        final String trimNote = fitted.isTrimmed()
+                ? "(The lyrics were shortened to fit: about " + fitted.getDroppedTokens() + " tokens were left out across "
+                        + fitted.getSongsTrimmed() + " songs. Every song is still represented.)\n\n"
+                : "";
+
+        // lyrics are mostly ASCII; the extra eighth leaves room for escaped line breaks and quotes
+        final int lyricsLength = fitted.getLyrics().length();
+        final RequestBody body = new RequestBody(lyricsLength + lyricsLength / 8 + REQUEST_OVERHEAD_BYTES);
+        try (JsonWriter json = new JsonWriter(body)) {
+            json.beginObject();
+            json.name("contents").beginArray().beginObject().name("parts").beginArray();
+            writeTextPart(json, "Analyze the sentiment of this playlist's lyrics and explain your finding: \n\n"
+                    + trimNote + "--- LYRICS ---\n\n");
+            writeTextPart(json, fitted.getLyrics());
+            json.endArray().endObject().endArray();
+
+            json.name("systemInstruction").beginObject().name("parts").beginArray();
+            writeTextPart(json, createSystemInstruction());
+            json.endArray().endObject();
+
+            json.name("generationConfig").beginObject();
+            json.name("responseMimeType").value("application/json");
+            json.name("responseSchema");
+            writeResultSchema(json, false);
+            json.endObject();
+            json.endObject();
+        }
+        return body;
+    }
+
+    /**
+     * Writes a request for several playlists. Each playlist's lyrics are a text part of their
+     * own, introduced by a numbered marker, and the response schema is an array of results that
+     * name the playlist they belong to.
+     * @param lyricsList the lyrics of each playlist, which together fit the token budget
+     * @return the encoded body
+     */
+    private RequestBody writeBatchRequestBody(List<String> lyricsList) throws IOException {
+        int lyricsLength = 0;
+        for (String lyrics : lyricsList) {
+            lyricsLength += lyrics.length();
+        }
+        final RequestBody body = new RequestBody(lyricsLength + lyricsLength / 8 + REQUEST_OVERHEAD_BYTES);
+        try (JsonWriter json = new JsonWriter(body)) {
+            json.beginObject();
+            json.name("contents").beginArray().beginObject().name("parts").beginArray();
+            writeTextPart(json, "Analyze the sentiment of each of these " + lyricsList.size()
+                    + " playlists' lyrics separately and explain your finding for each. "
+                    + "Give the playlist's number with each answer.\n\n");
+            for (int i = 0; i < lyricsList.size(); i++) {
+                writeTextPart(json, "--- PLAYLIST " + (i + 1) + " LYRICS ---\n\n");
+                writeTextPart(json, lyricsList.get(i));
             }
-            @SuppressWarnings("unchecked")
-            Map<String, Object> candidate = (Map<String, Object>) candidates.get(0);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> content = (Map<String, Object>) candidate.get("content");
-            @SuppressWarnings("unchecked")
-            List<Object> parts = (List<Object>) content.get("parts");
-            @SuppressWarnings("unchecked")
-            Map<String, Object> part = (Map<String, Object>) parts.get(0);
-            String sentimentJsonString = (String) part.get("text");
-
-            if (sentimentJsonString == null || sentimentJsonString.trim().isEmpty()) {
-                throw new IOException("Gemini returned empty or null text content.");
+            json.endArray().endObject().endArray();
+
+            json.name("systemInstruction").beginObject().name("parts").beginArray();
+            writeTextPart(json, createBatchSystemInstruction());
+            json.endArray().endObject();
+
+            json.name("generationConfig").beginObject();
+            json.name("responseMimeType").value("application/json");
+            json.name("responseSchema").beginObject();
+            json.name("type").value("ARRAY");
+            json.name("items");
+            writeResultSchema(json, true);
+            json.endObject();
+            json.endObject();
+            json.endObject();
+        }
+        return body;
+    }
+
+    private static void writeTextPart(JsonWriter json, String text) throws IOException {
+        json.beginObject().name("text").value(text).endObject();
+    }
+
+    /**
+     * Writes the schema of one sentiment result.
+     * @param numbered whether the result names the playlist it belongs to, as in a batch
+     */
+    private static void writeResultSchema(JsonWriter json, boolean numbered) throws IOException {
+        json.beginObject();
+        json.name("type").value("OBJECT");
+        json.name("properties").beginObject();
+        if (numbered) {
+            json.name("playlist").beginObject()
+                    .name("type").value("INTEGER")
+                    .name("description").value("The number of the playlist this result is for.")
+                    .endObject();
+        }
+        json.name("sentimentWord").beginObject()
+                .name("type").value("STRING")
+                .name("description").value("A single word or two describing the sentiment.")
+                .endObject();
+        json.name("sentimentExplanation").beginObject()
+                .name("type").value("STRING")
+                .name("description").value("A short paragraph explaining the sentiment.")
+                .endObject();
+        json.endObject();
+        json.name("required").beginArray();
+        if (numbered) {
+            json.value("playlist");
+        }
+        json.value("sentimentWord").value("sentimentExplanation").endArray();
+        // the word first, so that it is shown before the explanation when streaming
+        json.name("propertyOrdering").beginArray();
+        if (numbered) {
+            json.value("playlist");
+        }
+        json.value("sentimentWord").value("sentimentExplanation").endArray();
+        json.endObject();
+    }
+
+    /**
+     * A request body being written: a Writer that encodes UTF-8 straight into a byte array which
+     * is then handed to the HTTP client as is. Going through an OutputStreamWriter instead would
+     * copy every escaped piece of the lyrics into a temporary char array first.
+     */
+    private static final class RequestBody extends Writer {
+        private byte[] buf;
+        private int count;
+        private char highSurrogate;
+
+        RequestBody(int initialSize) {
+            this.buf = new byte[initialSize];
+        }
+
+        @Override
+        public void write(int c) {
+            writeChar((char) c);
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                writeChar(chars[i]);
             }
+        }
 
-            // Step 3: Sanitize the response string to remove Markdown fences
-            String cleanedJson = sentimentJsonString.trim();
-            if (cleanedJson.startsWith("```json")) {
-                cleanedJson = cleanedJson.substring(7);
-                if (cleanedJson.endsWith("```")) {
-                    cleanedJson = cleanedJson.substring(0, cleanedJson.length() - 3);
+        @Override
+        public void write(String str, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                writeChar(str.charAt(i));
+            }
+        }
+
+        private void writeChar(char c) {
+            ensureCapacity(4);
+            if (highSurrogate != 0) {
+                final char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    final int codePoint = Character.toCodePoint(high, c);
+                    buf[count++] = (byte) (0xF0 | codePoint >> 18);
+                    buf[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    buf[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    buf[count++] = (byte) (0x80 | codePoint & 0x3F);
+                    return;
                 }
+                buf[count++] = '?';
+                ensureCapacity(4);
             }
-            cleanedJson = cleanedJson.trim(); // Trim again after removing fences
-
-            // Step 4: Convert the generated JSON string to the final sentiment structure
-            Map<String, Object> sentimentData;
-            try {
-                sentimentData = gson.fromJson(cleanedJson, new TypeToken<Map<String, Object>>() {}.getType());
-            } catch (com.google.gson.JsonSyntaxException e) {
-                throw new IOException("Failed to parse the following text as JSON: " + cleanedJson, e);
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | c >> 6);
+                buf[count++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                buf[count++] = '?';
+            } else {
+                buf[count++] = (byte) (0xE0 | c >> 12);
+                buf[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buf[count++] = (byte) (0x80 | c & 0x3F);
             }
+        }
 
+        private void ensureCapacity(int extra) {
+            if (count + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                ensureCapacity(1);
+                buf[count++] = '?';
+            }
+        }
 
-            // Extract new Sentiment fields: sentimentWord and sentimentExplanation
-            String sentimentWord = (String) sentimentData.getOrDefault("sentimentWord", "Undetermined");
-            String sentimentExplanation = (String) sentimentData.getOrDefault("sentimentExplanation", "No explanation provided.");
+        int size() {
+            return count;
+        }
 
-            // Step 5: Use the Factory to create the entity
-            return sentimentResultFactory.create(sentimentWord, sentimentExplanation);
+        HttpRequest.BodyPublisher publisher() {
+            return HttpRequest.BodyPublishers.ofByteArray(buf, 0, count);
+        }
 
-        } catch (Exception e) {
-            throw new IOException("Failed to parse Gemini API response. Check API key and response format. Error: " + e.getMessage(), e);
+        String asString() {
+            return new String(buf, 0, count, StandardCharsets.UTF_8);
         }
     }
-}
\ No newline at end of file
+}
@@ -30,6 +30,8 @@ public class DBUserDataAccessObject implements
         LogoutUserDataAccessInterface {
 
     private final UserFactory userFactory;
+    private final HttpTransport transport;
+    private final RetryPolicy retryPolicy;
 
     // Simple in-memory store: spotifyId -> User
     private final Map<String, User> usersBySpotifyId = new HashMap<>();
@@ -37,8 +39,21 @@ public class DBUserDataAccessObject implements
     // Currently logged-in user
     private User currentUser;
 
-    public DBUserDataAccessObject(UserFactory userFactory) {
+    public DBUserDataAccessObject(UserFactory userFactory, HttpTransport transport) {
+        this(userFactory, transport, new RetryPolicy());
+    }
+
+    /**
+     * Constructs the DAO with a retry policy, so that Spotify requests throttled (429) or failed
+     * for a moment during sign-in are sent again after a wait instead of failing the login.
+     * @param userFactory the factory for User entities
+     * @param transport the shared HTTP transport
+     * @param retryPolicy the policy deciding whether and when a failed request is sent again
+     */
+    public DBUserDataAccessObject(UserFactory userFactory, HttpTransport transport, RetryPolicy retryPolicy) {
         this.userFactory = userFactory;
+        this.transport = transport;
+        this.retryPolicy = retryPolicy;
     }
 
     // ================== Basic CRUD by Spotify ID ==================
@@ -95,7 +110,7 @@ public class DBUserDataAccessObject implements
     public User createOrUpdateUserFromSpotifyCode(String code) throws Exception {
         app.SpotifyAuthConfig.validate(); // ensure env vars exist
 
-        final HttpClient httpClient = HttpClient.newHttpClient();
+        final HttpClient httpClient = transport.getClient();
         final Gson gson = new Gson();
 
         // ===== 1) Exchange authorization code for tokens at /api/token =====
@@ -121,7 +136,7 @@ public class DBUserDataAccessObject implements
                 .build();
 
         HttpResponse<String> tokenResponse =
-                httpClient.send(tokenRequest, HttpResponse.BodyHandlers.ofString());
+                retryPolicy.send(httpClient, tokenRequest, HttpResponse.BodyHandlers.ofString());
 
         if (tokenResponse.statusCode() != 200) {
             throw new RuntimeException(
@@ -157,7 +172,7 @@ public class DBUserDataAccessObject implements
                 .build();
 
         HttpResponse<String> meResponse =
-                httpClient.send(meRequest, HttpResponse.BodyHandlers.ofString());
+                retryPolicy.send(httpClient, meRequest, HttpResponse.BodyHandlers.ofString());
 
         if (meResponse.statusCode() != 200) {
             throw new RuntimeException(
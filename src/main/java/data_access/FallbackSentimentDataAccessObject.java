@@ -0,0 +1,124 @@
+package data_access;
+
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+import use_case.analyze_playlist.SentimentDataAccessInterface;
+import use_case.analyze_playlist.SentimentStreamListener;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A SentimentDataAccessInterface that answers from a fallback engine when the primary one fails,
+ * e.g. a local estimate while the Gemini API cannot be reached. Fallback results are marked as
+ * estimates and say in a few words why the primary engine was not used; the full error is
+ * logged. An interrupted analysis is not estimated; the primary engine's error is thrown instead.
+ */
+public class FallbackSentimentDataAccessObject implements SentimentDataAccessInterface {
+
+    private final SentimentDataAccessInterface primary;
+    private final SentimentDataAccessInterface fallback;
+    private final SentimentResultFactory sentimentResultFactory;
+
+    /**
+     * Constructs a FallbackSentimentDataAccessObject.
+     * @param primary the engine tried first
+     * @param fallback the engine used when the primary one throws an IOException
+     * @param resultFactory the factory for the marked fallback results
+     */
+    public FallbackSentimentDataAccessObject(SentimentDataAccessInterface primary,
+                                             SentimentDataAccessInterface fallback,
+                                             SentimentResultFactory resultFactory) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.sentimentResultFactory = resultFactory;
+    }
+
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics) throws IOException {
+        return analyzeSentiment(combinedLyrics, null);
+    }
+
+    /**
+     * Streams the primary engine's result to the listener; a fallback result is returned whole.
+     */
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener)
+            throws IOException {
+        try {
+            return primary.analyzeSentiment(combinedLyrics, listener);
+        } catch (IOException primaryError) {
+            rethrowIfInterrupted(primaryError);
+            logFailure(primaryError);
+            return estimate(fallback.analyzeSentiment(combinedLyrics), primaryError);
+        }
+    }
+
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) throws IOException {
+        return analyzeSentimentBatch(lyricsList, null);
+    }
+
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList, SentimentStreamListener listener)
+            throws IOException {
+        try {
+            return primary.analyzeSentimentBatch(lyricsList, listener);
+        } catch (IOException primaryError) {
+            rethrowIfInterrupted(primaryError);
+            logFailure(primaryError);
+            final List<SentimentResult> results = new ArrayList<>(lyricsList.size());
+            for (SentimentResult result : fallback.analyzeSentimentBatch(lyricsList)) {
+                results.add(estimate(result, primaryError));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * The primary engine fails when the analysis is cancelled; there is nobody left to estimate for.
+     */
+    private static void rethrowIfInterrupted(IOException primaryError) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw primaryError;
+        }
+    }
+
+    private static void logFailure(IOException primaryError) {
+        System.err.println("Sentiment analysis service failed, using the local estimate: "
+                + primaryError.getMessage());
+    }
+
+    private SentimentResult estimate(SentimentResult result, IOException primaryError) {
+        return sentimentResultFactory.createEstimate(result.getSentimentWord(),
+                "The sentiment analysis service could not be used (" + shortReason(primaryError)
+                        + "), so this is a quick local estimate.\n\n" + result.getSentimentExplanation());
+    }
+
+    /**
+     * @return a few words on why the primary engine failed, without the response body an error
+     *         message may carry
+     */
+    private static String shortReason(IOException primaryError) {
+        if (primaryError instanceof HttpTimeoutException) {
+            return "it did not answer in time";
+        }
+        if (!(primaryError instanceof GeminiResponseException)) {
+            return "it could not be reached";
+        }
+        final GeminiResponseException error = (GeminiResponseException) primaryError;
+        switch (error.getReason()) {
+            case HTTP_ERROR:
+                return "it answered with status " + error.getStatusCode();
+            case PROMPT_BLOCKED:
+                return "it refused the lyrics";
+            case NO_CANDIDATES:
+            case EMPTY_TEXT:
+                return "it returned no result";
+            default:
+                return "it returned a result that could not be read";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package data_access;
+
+import use_case.analyze_playlist.SpotifyPlaylistDataAccessInterface;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fits combined lyrics into a token budget before they are sent to Gemini.
+ *
+ * Token counts are estimated from the number of characters. When the lyrics are over budget,
+ * every song gets a fair share: songs shorter than an equal split keep all their lyrics and
+ * the budget they leave over is split among the longer ones. Each song is cut at a line break
+ * near the end of its share and its header line is always kept, so the model still sees every
+ * song. The prompt size, and with it the request latency, therefore has an upper bound no
+ * matter how large the playlist is. The amount dropped is returned with the fitted lyrics and
+ * counted across requests.
+ */
+public class GeminiPromptBuilder {
+
+    static final int CHARS_PER_TOKEN = 4;
+
+    private final int maxLyricsTokens;
+    private final AtomicLong trimmedRequests = new AtomicLong();
+    private final AtomicLong droppedTokens = new AtomicLong();
+
+    /**
+     * Constructs a GeminiPromptBuilder.
+     * @param maxLyricsTokens the largest number of lyrics tokens sent in one request
+     * @throws IllegalArgumentException if maxLyricsTokens is less than 1
+     */
+    public GeminiPromptBuilder(int maxLyricsTokens) {
+        if (maxLyricsTokens < 1) {
+            throw new IllegalArgumentException("maxLyricsTokens must be at least 1, got " + maxLyricsTokens);
+        }
+        this.maxLyricsTokens = maxLyricsTokens;
+    }
+
+    public int getMaxLyricsTokens() {
+        return maxLyricsTokens;
+    }
+
+    /**
+     * @param text any text
+     * @return the approximate number of tokens the text makes up
+     */
+    public static int estimateTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Fits the lyrics into the token budget.
+     * @param combinedLyrics lyrics as produced by getStringLyrics, songs introduced by header lines
+     * @return the lyrics to send, and how much of them was dropped
+     */
+    public FittedLyrics fit(String combinedLyrics) {
+        final int budgetChars = maxLyricsTokens * CHARS_PER_TOKEN;
+        if (combinedLyrics.length() <= budgetChars) {
+            return new FittedLyrics(combinedLyrics, estimateTokens(combinedLyrics), 0, 0);
+        }
+
+        final List<int[]> songs = songRanges(combinedLyrics);
+        final int[] shares = fairShares(songs, budgetChars);
+
+        final StringBuilder fitted = new StringBuilder(budgetChars + songs.size());
+        int songsTrimmed = 0;
+        for (int i = 0; i < songs.size(); i++) {
+            final int start = songs.get(i)[0];
+            final int end = songs.get(i)[1];
+            if (end - start <= shares[i]) {
+                fitted.append(combinedLyrics, start, end);
+                continue;
+            }
+            songsTrimmed++;
+            fitted.append(combinedLyrics, start, cutPoint(combinedLyrics, start, end, shares[i]));
+            if (fitted.length() > 0 && fitted.charAt(fitted.length() - 1) != '\n') {
+                fitted.append('\n');
+            }
+        }
+
+        final int keptTokens = estimateTokens(fitted);
+        final int dropped = Math.max(0, estimateTokens(combinedLyrics) - keptTokens);
+        trimmedRequests.incrementAndGet();
+        droppedTokens.addAndGet(dropped);
+        return new FittedLyrics(fitted.toString(), keptTokens, dropped, songsTrimmed);
+    }
+
+    /**
+     * @return the [start, end) range of each song; text before the first header counts as a song
+     */
+    static List<int[]> songRanges(String text) {
+        final String header = SpotifyPlaylistDataAccessInterface.SONG_HEADER_PREFIX;
+        final List<int[]> songs = new ArrayList<>();
+        int songStart = 0;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            if (lineStart > songStart && text.startsWith(header, lineStart)) {
+                songs.add(new int[] {songStart, lineStart});
+                songStart = lineStart;
+            }
+            final int newline = text.indexOf('\n', lineStart);
+            lineStart = newline < 0 ? text.length() : newline + 1;
+        }
+        songs.add(new int[] {songStart, text.length()});
+        return songs;
+    }
+
+    /**
+     * Max-min fair split of the budget: songs are served from shortest to longest, and each one
+     * gets the smaller of its own size and an equal part of what is left.
+     */
+    private static int[] fairShares(List<int[]> songs, int budget) {
+        final Integer[] bySize = new Integer[songs.size()];
+        for (int i = 0; i < bySize.length; i++) {
+            bySize[i] = i;
+        }
+        Arrays.sort(bySize, (a, b) -> Integer.compare(length(songs.get(a)), length(songs.get(b))));
+
+        final int[] shares = new int[songs.size()];
+        int remaining = budget;
+        for (int served = 0; served < bySize.length; served++) {
+            final int song = bySize[served];
+            final int equalPart = remaining / (bySize.length - served);
+            shares[song] = Math.min(length(songs.get(song)), equalPart);
+            remaining -= shares[song];
+        }
+        return shares;
+    }
+
+    /**
+     * @return where to cut a song so it fits its share: after the last full line that fits,
+     *         but never before the end of the song's first line (its header)
+     */
+    private static int cutPoint(String text, int start, int end, int share) {
+        final int limit = start + share;
+        final int lastBreak = text.lastIndexOf('\n', limit - 1);
+        final int firstLineEnd = text.indexOf('\n', start);
+        final int headerEnd = firstLineEnd < 0 || firstLineEnd >= end ? end : firstLineEnd + 1;
+        if (lastBreak >= headerEnd) {
+            return lastBreak + 1;
+        }
+        return headerEnd;
+    }
+
+    private static int length(int[] range) {
+        return range[1] - range[0];
+    }
+
+    @Override
+    public String toString() {
+        return "GeminiPromptBuilder{maxLyricsTokens=" + maxLyricsTokens + ", trimmedRequests=" + trimmedRequests
+                + ", droppedTokens=" + droppedTokens + "}";
+    }
+
+    /**
+     * Lyrics fitted into the budget, with what it cost.
+     */
+    public static final class FittedLyrics {
+        private final String lyrics;
+        private final int keptTokens;
+        private final int droppedTokens;
+        private final int songsTrimmed;
+
+        FittedLyrics(String lyrics, int keptTokens, int droppedTokens, int songsTrimmed) {
+            this.lyrics = lyrics;
+            this.keptTokens = keptTokens;
+            this.droppedTokens = droppedTokens;
+            this.songsTrimmed = songsTrimmed;
+        }
+
+        public String getLyrics() {
+            return lyrics;
+        }
+
+        public int getKeptTokens() {
+            return keptTokens;
+        }
+
+        public int getDroppedTokens() {
+            return droppedTokens;
+        }
+
+        public int getSongsTrimmed() {
+            return songsTrimmed;
+        }
+
+        public boolean isTrimmed() {
+            return droppedTokens > 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package data_access;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a Gemini request does not produce a usable sentiment result.
+ * The reason tells the failure modes apart, so callers can decide whether retrying makes sense.
+ */
+public class GeminiResponseException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Why the response could not be used.
+     */
+    public enum Reason {
+        /** The API answered with a status other than 200. */
+        HTTP_ERROR,
+        /** The response is not the JSON structure the API documents. */
+        MALFORMED_RESPONSE,
+        /** The prompt was refused; the response names the block reason. */
+        PROMPT_BLOCKED,
+        /** The response has no candidates. */
+        NO_CANDIDATES,
+        /** The first candidate has no text, for example because generation was stopped. */
+        EMPTY_TEXT,
+        /** The generated text is not the sentiment JSON the response schema asks for. */
+        MALFORMED_RESULT
+    }
+
+    private final Reason reason;
+    private final int statusCode;
+
+    /**
+     * Constructs an exception for a response that came back with status 200.
+     * @param reason what was wrong with the response
+     * @param message the detail message
+     * @param cause the underlying parse error, or null
+     */
+    public GeminiResponseException(Reason reason, String message, Throwable cause) {
+        this(reason, message, -1, cause);
+    }
+
+    /**
+     * Constructs an exception for an unsuccessful HTTP status.
+     * @param statusCode the status the API answered with
+     * @param message the detail message
+     */
+    public GeminiResponseException(int statusCode, String message) {
+        this(Reason.HTTP_ERROR, message, statusCode, null);
+    }
+
+    private GeminiResponseException(Reason reason, String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+        this.statusCode = statusCode;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the HTTP status for HTTP_ERROR, otherwise -1
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
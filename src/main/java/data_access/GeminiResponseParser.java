@@ -0,0 +1,366 @@
+package data_access;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a Gemini generateContent response in one pass.
+ *
+ * The response is walked with a JsonReader along candidates, content, parts and text; everything
+ * else is skipped without being materialized. The text of the first candidate is the sentiment
+ * JSON requested by the response schema, and it is read the same way straight into a
+ * SentimentResult. Each way the response can be unusable is reported as a GeminiResponseException
+ * with its own reason.
+ */
+public class GeminiResponseParser {
+
+    private static final String DEFAULT_WORD = "Undetermined";
+    private static final String DEFAULT_EXPLANATION = "No explanation provided.";
+    private static final String FENCE = "```";
+
+    private final SentimentResultFactory sentimentResultFactory;
+
+    /**
+     * Constructs a GeminiResponseParser.
+     * @param resultFactory the factory that creates the parsed SentimentResult entities
+     */
+    public GeminiResponseParser(SentimentResultFactory resultFactory) {
+        this.sentimentResultFactory = resultFactory;
+    }
+
+    /**
+     * Parses a response body.
+     * @param response the body of a successful generateContent call; it is not closed
+     * @return the sentiment result in the first candidate
+     * @throws GeminiResponseException if the response does not contain a usable result
+     * @throws IOException if reading the body fails
+     */
+    public SentimentResult parse(Reader response) throws IOException {
+        return parseResult(readCandidateText(response));
+    }
+
+    /**
+     * Parses the response to a batch request, whose text is an array with one result per playlist.
+     * Results are placed by the playlist number they give, or in order when they give none.
+     * @param response the body of a successful generateContent call; it is not closed
+     * @param expected the number of playlists in the request
+     * @return the results, in the order of the playlists in the request
+     * @throws GeminiResponseException if the response does not contain a result for every playlist
+     * @throws IOException if reading the body fails
+     */
+    public List<SentimentResult> parseBatch(Reader response, int expected) throws IOException {
+        return parseBatchResult(readCandidateText(response), expected);
+    }
+
+    /**
+     * Parses the generated text of a batch response.
+     */
+    List<SentimentResult> parseBatchResult(String text, int expected) throws GeminiResponseException {
+        final String json = stripFence(text.strip());
+        final SentimentResult[] results = new SentimentResult[expected];
+        int received = 0;
+        try {
+            final JsonReader reader = new JsonReader(new StringReader(json));
+            reader.beginArray();
+            int next = 0;
+            while (reader.hasNext()) {
+                final int[] playlist = {0};
+                final SentimentResult result = readResult(reader, playlist);
+                received++;
+                int slot = playlist[0] - 1;
+                if (slot < 0 || slot >= expected || results[slot] != null) {
+                    while (next < expected && results[next] != null) {
+                        next++;
+                    }
+                    slot = next;
+                }
+                if (slot < expected) {
+                    results[slot] = result;
+                }
+            }
+            reader.endArray();
+        } catch (IOException | IllegalStateException | JsonParseException e) {
+            throw new GeminiResponseException(GeminiResponseException.Reason.MALFORMED_RESULT,
+                    "Failed to parse the following text as a JSON array: " + json, e);
+        }
+        if (received != expected) {
+            throw new GeminiResponseException(GeminiResponseException.Reason.MALFORMED_RESULT,
+                    "Gemini returned " + received + " results for " + expected + " playlists.", null);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reads the text of the first candidate's first text part.
+     */
+    String readCandidateText(Reader response) throws IOException {
+        final Candidate candidate = readCandidate(response);
+        if (!candidate.sawCandidate) {
+            throw new GeminiResponseException(GeminiResponseException.Reason.NO_CANDIDATES,
+                    "Gemini returned no candidates.", null);
+        }
+        if (candidate.text == null || candidate.text.isBlank()) {
+            throw emptyText(candidate.finishReason);
+        }
+        return candidate.text;
+    }
+
+    /**
+     * Reads one event of a streamed response, which carries the next piece of the generated text.
+     * @param event the JSON data of the event
+     * @return the piece of text, or null if the event carries none, e.g. only the finish reason
+     * @throws GeminiResponseException if the event cannot be read or the prompt was blocked
+     */
+    String readStreamChunk(Reader event) throws IOException {
+        return readCandidate(event).text;
+    }
+
+    static GeminiResponseException emptyText(String finishReason) {
+        return new GeminiResponseException(GeminiResponseException.Reason.EMPTY_TEXT,
+                "Gemini returned empty or null text content"
+                        + (finishReason == null ? "." : " (finish reason: " + finishReason + ")."), null);
+    }
+
+    private Candidate readCandidate(Reader response) throws IOException {
+        final Candidate candidate = new Candidate();
+        String blockReason = null;
+        try {
+            final JsonReader reader = new JsonReader(response);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "candidates" -> {
+                        reader.beginArray();
+                        if (reader.hasNext()) {
+                            candidate.sawCandidate = true;
+                            reader.beginObject();
+                            while (reader.hasNext()) {
+                                switch (reader.nextName()) {
+                                    case "content" -> candidate.text = readContentText(reader);
+                                    case "finishReason" -> candidate.finishReason = nextStringOrNull(reader);
+                                    default -> reader.skipValue();
+                                }
+                            }
+                            reader.endObject();
+                        }
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                        }
+                        reader.endArray();
+                    }
+                    case "promptFeedback" -> blockReason = readBlockReason(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | JsonParseException | EOFException | MalformedJsonException e) {
+            throw new GeminiResponseException(GeminiResponseException.Reason.MALFORMED_RESPONSE,
+                    "Gemini returned a response that could not be read: " + e.getMessage(), e);
+        }
+
+        if (blockReason != null) {
+            throw new GeminiResponseException(GeminiResponseException.Reason.PROMPT_BLOCKED,
+                    "Gemini refused the request (block reason: " + blockReason + ").", null);
+        }
+        return candidate;
+    }
+
+    /**
+     * What was read from the first candidate of a response.
+     */
+    private static final class Candidate {
+        private boolean sawCandidate;
+        private String text;
+        private String finishReason;
+    }
+
+    /**
+     * Reads the sentiment word and explanation out of generated text that may still be incomplete.
+     * When the text is an array of results, the fields of the last result are read.
+     * @param text the sentiment JSON generated so far
+     * @return the word and the explanation so far, each empty if it has not started yet
+     */
+    static String[] readPartialResult(String text) {
+        final int wordKey = text.lastIndexOf("\"sentimentWord\"");
+        final int explanationKey = text.lastIndexOf("\"sentimentExplanation\"");
+        final String word = wordKey < 0 ? "" : partialString(text, wordKey + "\"sentimentWord\"".length());
+        // an explanation before the last word belongs to the previous result of an array
+        final String explanation = explanationKey < 0 || explanationKey < wordKey ? ""
+                : partialString(text, explanationKey + "\"sentimentExplanation\"".length());
+        return new String[] {word, explanation};
+    }
+
+    /**
+     * Decodes the string value that follows a key, up to its closing quote or the end of the text.
+     */
+    private static String partialString(String text, int afterKey) {
+        int i = afterKey;
+        while (i < text.length() && (Character.isWhitespace(text.charAt(i)) || text.charAt(i) == ':')) {
+            i++;
+        }
+        if (i >= text.length() || text.charAt(i) != '"') {
+            return "";
+        }
+        final StringBuilder value = new StringBuilder();
+        for (i++; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '"') {
+                break;
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i + 1 >= text.length()) {
+                break;
+            }
+            final char escaped = text.charAt(++i);
+            switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 't' -> value.append('\t');
+                case 'r' -> value.append('\r');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= text.length()) {
+                        return value.toString();
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        return value.toString();
+                    }
+                    i += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Parses the generated sentiment JSON, which may be wrapped in a Markdown code fence.
+     */
+    SentimentResult parseResult(String text) throws GeminiResponseException {
+        final String json = stripFence(text.strip());
+        try {
+            return readResult(new JsonReader(new StringReader(json)), new int[1]);
+        } catch (IOException | IllegalStateException | JsonParseException e) {
+            throw new GeminiResponseException(GeminiResponseException.Reason.MALFORMED_RESULT,
+                    "Failed to parse the following text as JSON: " + json, e);
+        }
+    }
+
+    /**
+     * Reads one sentiment object.
+     * @param playlist receives the playlist number the object gives, if any
+     */
+    private SentimentResult readResult(JsonReader reader, int[] playlist) throws IOException {
+        String word = DEFAULT_WORD;
+        String explanation = DEFAULT_EXPLANATION;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "sentimentWord" -> word = orDefault(nextStringOrNull(reader), DEFAULT_WORD);
+                case "sentimentExplanation" ->
+                        explanation = orDefault(nextStringOrNull(reader), DEFAULT_EXPLANATION);
+                case "playlist" -> playlist[0] = readPlaylistNumber(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return sentimentResultFactory.create(word, explanation);
+    }
+
+    /**
+     * @return the playlist number, or 0 when the value is not a whole number
+     */
+    private static int readPlaylistNumber(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NUMBER) {
+            final double number = reader.nextDouble();
+            return number == Math.rint(number) && Math.abs(number) <= Integer.MAX_VALUE ? (int) number : 0;
+        }
+        reader.skipValue();
+        return 0;
+    }
+
+    private static String readContentText(JsonReader reader) throws IOException {
+        String text = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"parts".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (text == null && "text".equals(reader.nextName())) {
+                        text = nextStringOrNull(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return text;
+    }
+
+    private static String readBlockReason(JsonReader reader) throws IOException {
+        String blockReason = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("blockReason".equals(reader.nextName())) {
+                blockReason = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return blockReason;
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value == null ? fallback : value;
+    }
+
+    private static String stripFence(String text) {
+        if (!text.startsWith(FENCE)) {
+            return text;
+        }
+        // drop the opening fence and its language tag, e.g. ```json
+        final int lineEnd = text.indexOf('\n');
+        String body = lineEnd < 0 ? text.substring(FENCE.length()) : text.substring(lineEnd + 1);
+        if (lineEnd < 0 && body.startsWith("json")) {
+            body = body.substring("json".length());
+        }
+        body = body.strip();
+        if (body.endsWith(FENCE)) {
+            body = body.substring(0, body.length() - FENCE.length());
+        }
+        return body.strip();
+    }
+}
@@ -0,0 +1,94 @@
+package data_access;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The HTTP transport shared by all data access objects of a process; AppBuilder creates the
+ * application's one and passes it to every DAO that talks to the network.
+ *
+ * It owns a single HttpClient, so connections (and their TLS sessions) to Spotify, lyrics.ovh
+ * and Gemini are kept open and reused across calls and across DAOs instead of every DAO or
+ * every call opening its own. HTTP/2 is preferred, which lets concurrent requests to one host
+ * share a single connection. All response handling runs on one shared, bounded executor.
+ * Response bodies read as blocking streams are read on a second bounded executor, so a slow body
+ * never holds a thread the HttpClient needs to deliver the data.
+ */
+public class HttpTransport {
+
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final int DEFAULT_THREADS = 8;
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final ExecutorService bodyReaderExecutor;
+
+    public HttpTransport() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_THREADS);
+    }
+
+    /**
+     * Constructs the transport.
+     * @param connectTimeout how long to wait for a new connection to be established
+     * @param threads the number of threads handling requests and responses, and the number
+     *                reading response bodies
+     */
+    public HttpTransport(Duration connectTimeout, int threads) {
+        this.executor = newDaemonPool("http-transport-", threads);
+        this.bodyReaderExecutor = newDaemonPool("http-body-reader-", threads);
+
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Sets how long an idle HTTP/1.1 connection stays in the JDK's connection pool for reuse.
+     *
+     * This is process-level configuration, not part of any one transport: the JDK reads it once,
+     * when the first HttpClient is created, and applies it to every HttpClient in the JVM. Call it
+     * once at startup, before anything creates an HttpClient. An explicit -D setting is left alone.
+     * @param keepAlive the idle time after which a pooled connection is closed
+     */
+    public static void configureKeepAlive(Duration keepAlive) {
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(KEEP_ALIVE_PROPERTY, Long.toString(keepAlive.toSeconds()));
+        }
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return the bounded executor to read blocking response bodies (e.g. BodyHandlers.ofInputStream) on
+     */
+    public Executor getBodyReaderExecutor() {
+        return bodyReaderExecutor;
+    }
+
+    /**
+     * Stops the shared executors. Requests still in flight are abandoned.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        bodyReaderExecutor.shutdownNow();
+    }
+
+    private static ExecutorService newDaemonPool(String namePrefix, int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
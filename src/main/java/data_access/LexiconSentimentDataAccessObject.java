@@ -0,0 +1,358 @@
+package data_access;
+
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+import use_case.analyze_playlist.SentimentDataAccessInterface;
+
+/**
+ * Offline implementation of the SentimentDataAccessInterface based on a word list.
+ *
+ * Every emotional word in the lexicon has a valence (-3 to +3) and a mood. The lyrics are
+ * scanned once; a negator ("not", "never", "don't", ...) reverses the next few words in its
+ * phrase, and an intensifier ("so", "really") or a softener ("barely",
+ * "kinda") scales the next emotional word. The mood with the most weight becomes the sentiment
+ * word, or "Bittersweet" when positive and negative words are both strong.
+ *
+ * Words are matched directly against the lyrics, case-insensitively and without creating a
+ * String per word, so a playlist is scored in a few milliseconds with almost no garbage.
+ * Results are marked as estimates.
+ */
+public class LexiconSentimentDataAccessObject implements SentimentDataAccessInterface {
+
+    private static final String MODEL_NAME = "lexicon-v1";
+    private static final int NEGATION_SCOPE = 3;
+    private static final double NEGATION_FACTOR = -0.75;
+    private static final double INTENSIFIER_FACTOR = 1.5;
+    private static final double SOFTENER_FACTOR = 0.5;
+    private static final double BITTERSWEET_SHARE = 0.35;
+    private static final int TOP_WORDS = 3;
+
+    private static final byte WORD = 0;
+    private static final byte NEGATOR = 1;
+    private static final byte INTENSIFIER = 2;
+    private static final byte SOFTENER = 3;
+
+    /**
+     * The moods a lexicon word can carry, with the sentiment word each one stands for.
+     */
+    private enum Mood {
+        JOY("Joyful", "joy"),
+        LOVE("Romantic", "love"),
+        CALM("Serene", "calm"),
+        SADNESS("Melancholic", "sadness"),
+        ANGER("Angry", "anger"),
+        FEAR("Anxious", "fear");
+
+        private final String sentimentWord;
+        private final String theme;
+
+        Mood(String sentimentWord, String theme) {
+            this.sentimentWord = sentimentWord;
+            this.theme = theme;
+        }
+    }
+
+    private static final Lexicon LEXICON = new Lexicon(512);
+
+    static {
+        LEXICON.addWords(Mood.JOY, 3, "euphoric", "ecstatic", "amazing", "wonderful", "glorious", "paradise");
+        LEXICON.addWords(Mood.JOY, 2, "happy", "happiness", "joy", "smile", "smiling", "laugh", "laughing",
+                "celebrate", "party", "dance", "dancing", "shine", "shining", "bright", "sunshine", "fun",
+                "alive", "free", "freedom", "good", "great", "best", "beautiful", "gold", "golden", "win",
+                "winning", "high", "fly", "flying", "dream", "dreams", "hope", "hopeful", "light", "sky");
+        LEXICON.addWords(Mood.LOVE, 3, "love", "loving", "loved", "adore", "darling", "sweetheart");
+        LEXICON.addWords(Mood.LOVE, 2, "baby", "kiss", "kisses", "hold", "embrace", "heart", "together",
+                "forever", "honey", "romance", "desire", "tender", "touch", "lover", "mine", "yours");
+        LEXICON.addWords(Mood.CALM, 1, "calm", "peace", "peaceful", "quiet", "gentle", "slow", "easy",
+                "rest", "home", "safe", "warm", "breathe", "soft", "ocean", "river", "stars");
+        LEXICON.addWords(Mood.SADNESS, -3, "heartbreak", "heartbroken", "grief", "suicide", "die", "dead",
+                "death", "funeral", "misery", "despair");
+        LEXICON.addWords(Mood.SADNESS, -2, "sad", "sadness", "cry", "crying", "cried", "tears", "tear",
+                "lonely", "alone", "lost", "lose", "losing", "broken", "break", "pain", "hurt", "hurts",
+                "sorrow", "miss", "missing", "goodbye", "gone", "empty", "cold", "dark", "darkness", "rain",
+                "blue", "regret", "sorry", "fall", "falling", "leave", "leaving", "left", "tired", "wrong");
+        LEXICON.addWords(Mood.ANGER, -3, "hate", "hatred", "kill", "rage", "revenge");
+        LEXICON.addWords(Mood.ANGER, -2, "angry", "mad", "fight", "fighting", "war", "fire", "burn",
+                "burning", "blood", "enemy", "liar", "lies", "lie", "betray", "damn", "fury", "destroy");
+        LEXICON.addWords(Mood.FEAR, -2, "afraid", "scared", "fear", "fears", "panic", "nervous", "anxious",
+                "worry", "worried", "nightmare", "danger", "dangerous", "trouble", "shaking", "run", "running",
+                "hide", "hiding", "monster", "ghost");
+        LEXICON.addModifiers(NEGATOR, NEGATION_FACTOR, "not", "no", "never", "nothing", "nobody", "none",
+                "without", "don't", "dont", "can't", "cant", "won't", "wont", "ain't", "aint", "isn't",
+                "wasn't", "didn't", "doesn't", "couldn't", "wouldn't", "shouldn't", "neither", "nor");
+        LEXICON.addModifiers(INTENSIFIER, INTENSIFIER_FACTOR, "so", "very", "really", "too", "truly",
+                "totally", "completely", "extremely", "absolutely", "deeply", "such");
+        LEXICON.addModifiers(SOFTENER, SOFTENER_FACTOR, "barely", "hardly", "slightly", "kinda", "somewhat",
+                "almost", "little", "maybe");
+    }
+
+    private final SentimentResultFactory sentimentResultFactory;
+
+    public LexiconSentimentDataAccessObject(SentimentResultFactory resultFactory) {
+        this.sentimentResultFactory = resultFactory;
+    }
+
+    public String getModelName() {
+        return MODEL_NAME;
+    }
+
+    /**
+     * Scores the lyrics against the lexicon. Never throws: lyrics without any emotional
+     * words give a "Neutral" result.
+     *
+     * @param combinedLyrics A single String containing the concatenated lyrics.
+     * @return An estimated SentimentResult with a generated explanation.
+     */
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics) {
+        final Score score = new Score(LEXICON.size());
+        score.scan(combinedLyrics);
+        return sentimentResultFactory.createEstimate(score.sentimentWord(), score.explanation());
+    }
+
+    /**
+     * The running totals of one scan.
+     */
+    private static final class Score {
+        private final int[] wordCounts;
+        private final double[] moodWeights = new double[Mood.values().length];
+        private double positive;
+        private double negative;
+        private int matches;
+        private int negatedMatches;
+
+        Score(int lexiconSize) {
+            this.wordCounts = new int[lexiconSize];
+        }
+
+        void scan(String text) {
+            int negationLeft = 0;
+            double multiplier = 1;
+            int i = 0;
+            final int length = text.length();
+
+            while (i < length) {
+                final char c = text.charAt(i);
+                if (!isWordChar(c)) {
+                    if (c == '.' || c == '!' || c == '?' || c == ',' || c == ';' || c == '\n') {
+                        // a negation or intensifier does not reach past the end of its phrase
+                        negationLeft = 0;
+                        multiplier = 1;
+                    }
+                    i++;
+                    continue;
+                }
+
+                final int start = i;
+                while (i < length && isWordChar(text.charAt(i))) {
+                    i++;
+                }
+                final int entry = LEXICON.find(text, start, i);
+                if (entry < 0) {
+                    negationLeft = Math.max(0, negationLeft - 1);
+                    continue;
+                }
+
+                switch (LEXICON.kinds[entry]) {
+                    case NEGATOR:
+                        negationLeft = NEGATION_SCOPE;
+                        break;
+                    case INTENSIFIER:
+                    case SOFTENER:
+                        multiplier *= LEXICON.values[entry];
+                        break;
+                    default:
+                        double valence = LEXICON.values[entry] * multiplier;
+                        if (negationLeft > 0) {
+                            valence *= NEGATION_FACTOR;
+                            negatedMatches++;
+                        }
+                        record(entry, valence);
+                        multiplier = 1;
+                        negationLeft = Math.max(0, negationLeft - 1);
+                }
+            }
+        }
+
+        private void record(int entry, double valence) {
+            matches++;
+            wordCounts[entry]++;
+            if (valence >= 0) {
+                positive += valence;
+            } else {
+                negative -= valence;
+            }
+            // a negated word counts against its own mood
+            moodWeights[LEXICON.moods[entry]] += Math.signum(LEXICON.values[entry]) * valence;
+        }
+
+        String sentimentWord() {
+            if (matches == 0) {
+                return "Neutral";
+            }
+            final double total = positive + negative;
+            if (positive >= BITTERSWEET_SHARE * total && negative >= BITTERSWEET_SHARE * total) {
+                return "Bittersweet";
+            }
+            final int top = topMood();
+            return top < 0 ? "Neutral" : Mood.values()[top].sentimentWord;
+        }
+
+        String explanation() {
+            final StringBuilder text = new StringBuilder(256);
+            text.append("Offline estimate based on a word list; no AI model was used. ");
+            if (matches == 0) {
+                return text.append("No emotionally charged words were found in the lyrics.").toString();
+            }
+
+            final double average = (positive - negative) / matches;
+            text.append("The lyrics lean ").append(average > 0.25 ? "positive" : average < -0.25 ? "negative" : "mixed")
+                    .append(": ").append(matches).append(" emotional words, with an average score of ")
+                    .append(String.format("%+.1f", average)).append(" on a scale from -3 to +3.");
+
+            final int top = topMood();
+            if (top >= 0) {
+                text.append(" The strongest theme is ").append(Mood.values()[top].theme).append('.');
+            }
+
+            text.append(" Most frequent:");
+            final int[] topWords = topWords();
+            for (int i = 0; i < topWords.length && topWords[i] >= 0; i++) {
+                text.append(i == 0 ? " \"" : ", \"").append(LEXICON.keys[topWords[i]])
+                        .append("\" (").append(wordCounts[topWords[i]]).append(')');
+            }
+            text.append('.');
+
+            if (negatedMatches > 0) {
+                text.append(' ').append(negatedMatches)
+                        .append(negatedMatches == 1 ? " word was" : " words were")
+                        .append(" negated and counted with the opposite meaning.");
+            }
+            return text.toString();
+        }
+
+        private int topMood() {
+            int top = -1;
+            for (int i = 0; i < moodWeights.length; i++) {
+                if (moodWeights[i] > 0 && (top < 0 || moodWeights[i] > moodWeights[top])) {
+                    top = i;
+                }
+            }
+            return top;
+        }
+
+        private int[] topWords() {
+            final int[] top = {-1, -1, -1};
+            for (int entry = 0; entry < wordCounts.length; entry++) {
+                if (wordCounts[entry] == 0) {
+                    continue;
+                }
+                for (int rank = 0; rank < TOP_WORDS; rank++) {
+                    if (top[rank] < 0 || wordCounts[entry] > wordCounts[top[rank]]) {
+                        System.arraycopy(top, rank, top, rank + 1, TOP_WORDS - rank - 1);
+                        top[rank] = entry;
+                        break;
+                    }
+                }
+            }
+            return top;
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetter(c) || c == '\'' || c == '\u2019';
+    }
+
+    /**
+     * Open-addressing hash table from lowercase words to lexicon entries. Lookups hash and
+     * compare a range of the lyrics directly, so no substring is created.
+     */
+    private static final class Lexicon {
+        private final String[] keys;
+        private final byte[] kinds;
+        private final double[] values;
+        private final int[] moods;
+        private int size;
+
+        Lexicon(int capacity) {
+            keys = new String[capacity];
+            kinds = new byte[capacity];
+            values = new double[capacity];
+            moods = new int[capacity];
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        void addWords(Mood mood, double valence, String... words) {
+            for (String word : words) {
+                add(word, WORD, valence, mood.ordinal());
+            }
+        }
+
+        void addModifiers(byte kind, double factor, String... words) {
+            for (String word : words) {
+                add(word, kind, factor, 0);
+            }
+        }
+
+        private void add(String word, byte kind, double value, int mood) {
+            if (size * 2 >= keys.length) {
+                throw new IllegalStateException("lexicon capacity too small");
+            }
+            int slot = slot(word, 0, word.length());
+            while (keys[slot] != null) {
+                if (keys[slot].equals(word)) {
+                    // the first entry for a word wins
+                    return;
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = word;
+            kinds[slot] = kind;
+            values[slot] = value;
+            moods[slot] = mood;
+            size++;
+        }
+
+        /**
+         * @return the slot of text[start, end) ignoring case, or -1 if it is not in the lexicon
+         */
+        int find(String text, int start, int end) {
+            int slot = slot(text, start, end);
+            while (keys[slot] != null) {
+                if (matches(keys[slot], text, start, end)) {
+                    return slot;
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return -1;
+        }
+
+        private int slot(String text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + fold(text.charAt(i));
+            }
+            hash ^= hash >>> 16;
+            return hash & (keys.length - 1);
+        }
+
+        private static boolean matches(String key, String text, int start, int end) {
+            if (key.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != fold(text.charAt(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static char fold(char c) {
+            return c == '\u2019' ? '\'' : Character.toLowerCase(c);
+        }
+    }
+}
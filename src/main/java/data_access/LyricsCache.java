@@ -0,0 +1,284 @@
+package data_access;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import entity.SongCanonicalizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of song lyrics keyed by artist/title.
+ *
+ * The first tier is a small in-memory LRU map. The second tier is a directory with one JSON file
+ * per song, so cached lyrics survive restarts. Every entry carries its own expiry time, and both
+ * tiers are capped: the memory tier evicts the least recently used entry, the disk tier deletes
+ * the oldest files. Lookups are counted so the hit rate can be checked.
+ */
+public class LyricsCache {
+
+    private static final double DISK_EVICTION_FRACTION = 0.1;
+
+    private final Path directory;
+    private final int maxMemoryEntries;
+    private final int maxDiskEntries;
+    private final Duration defaultTtl;
+    private final Gson gson = new Gson();
+    private final Map<String, CacheEntry> memory;
+    private final AtomicInteger diskEntries = new AtomicInteger();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs a LyricsCache.
+     * @param directoryPath the directory for the on-disk tier, or null to keep entries in memory only
+     * @param maxMemoryEntries the maximum number of entries kept in memory
+     * @param maxDiskEntries the maximum number of entry files kept on disk
+     * @param defaultTtl how long an entry stays valid when no TTL is given to put
+     */
+    public LyricsCache(String directoryPath, int maxMemoryEntries, int maxDiskEntries, Duration defaultTtl) {
+        this.directory = directoryPath == null ? null : Paths.get(directoryPath);
+        this.maxMemoryEntries = maxMemoryEntries;
+        this.maxDiskEntries = maxDiskEntries;
+        this.defaultTtl = defaultTtl;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                // evicted entries are still on disk, so this only drops the memory copy
+                return size() > LyricsCache.this.maxMemoryEntries;
+            }
+        };
+
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                diskEntries.set(listEntryFiles().length);
+            } catch (IOException e) {
+                System.err.println("Error creating lyrics cache directory: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Looks up cached lyrics.
+     * @param artist the song's artist
+     * @param title the song's title
+     * @return the lyrics, or null if nothing valid is cached
+     */
+    public String get(String artist, String title) {
+        final String key = SongCanonicalizer.key(artist, title);
+        final long now = System.currentTimeMillis();
+
+        synchronized (memory) {
+            final CacheEntry entry = memory.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                memoryHits.incrementAndGet();
+                return entry.lyrics;
+            }
+            if (entry != null) {
+                memory.remove(key);
+            }
+        }
+
+        final CacheEntry entry = readFromDisk(key, now);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        diskHits.incrementAndGet();
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        return entry.lyrics;
+    }
+
+    /**
+     * Stores lyrics with the default TTL.
+     * @param artist the song's artist
+     * @param title the song's title
+     * @param lyrics the lyrics to cache
+     */
+    public void put(String artist, String title, String lyrics) {
+        put(artist, title, lyrics, defaultTtl);
+    }
+
+    /**
+     * Stores lyrics in both tiers.
+     * @param artist the song's artist
+     * @param title the song's title
+     * @param lyrics the lyrics to cache
+     * @param ttl how long the entry stays valid
+     */
+    public void put(String artist, String title, String lyrics, Duration ttl) {
+        final String key = SongCanonicalizer.key(artist, title);
+        final CacheEntry entry = new CacheEntry(artist, title, lyrics, System.currentTimeMillis() + ttl.toMillis());
+
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        writeToDisk(key, entry);
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getHitCount() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "LyricsCache{memoryHits=" + memoryHits + ", diskHits=" + diskHits
+                + ", misses=" + misses + ", diskEvictions=" + evictions + "}";
+    }
+
+    private CacheEntry readFromDisk(String key, long now) {
+        if (directory == null) {
+            return null;
+        }
+        final Path file = entryFile(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final CacheEntry entry = gson.fromJson(reader, CacheEntry.class);
+            if (entry != null && entry.expiresAt > now && entry.lyrics != null) {
+                return entry;
+            }
+        } catch (IOException | JsonParseException e) {
+            // unreadable entry: treat it like an expired one
+        }
+
+        deleteEntryFile(file);
+        return null;
+    }
+
+    private void writeToDisk(String key, CacheEntry entry) {
+        if (directory == null) {
+            return;
+        }
+        final Path file = entryFile(key);
+        final boolean isNew = !Files.exists(file);
+
+        try {
+            final Path temp = Files.createTempFile(directory, "entry", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(entry, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error saving lyrics cache entry: " + e.getMessage());
+            return;
+        }
+
+        if (isNew && diskEntries.incrementAndGet() > maxDiskEntries) {
+            evictOldestFromDisk();
+        }
+    }
+
+    /**
+     * Deletes the least recently written files until the disk tier is a little under its cap,
+     * so the directory is not listed again on every put.
+     */
+    private synchronized void evictOldestFromDisk() {
+        final File[] files = listEntryFiles();
+        final int target = (int) (maxDiskEntries * (1 - DISK_EVICTION_FRACTION));
+        if (files.length <= maxDiskEntries) {
+            diskEntries.set(files.length);
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        int remaining = files.length;
+        for (int i = 0; i < files.length && remaining > target; i++) {
+            if (files[i].delete()) {
+                remaining--;
+                evictions.incrementAndGet();
+            }
+        }
+        diskEntries.set(remaining);
+    }
+
+    private void deleteEntryFile(Path file) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                diskEntries.decrementAndGet();
+            }
+        } catch (IOException e) {
+            System.err.println("Error deleting lyrics cache entry: " + e.getMessage());
+        }
+    }
+
+    private File[] listEntryFiles() {
+        final File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".json"));
+        return files == null ? new File[0] : files;
+    }
+
+    private Path entryFile(String key) {
+        return directory.resolve(sha256(key) + ".json");
+    }
+
+    static String sha256(String text) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * One cached song, stored as JSON in the disk tier.
+     */
+    private static class CacheEntry {
+        private final String artist;
+        private final String title;
+        private final String lyrics;
+        private final long expiresAt;
+
+        CacheEntry(String artist, String title, String lyrics, long expiresAt) {
+            this.artist = artist;
+            this.title = title;
+            this.lyrics = lyrics;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
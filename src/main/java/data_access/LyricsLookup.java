@@ -0,0 +1,55 @@
+package data_access;
+
+/**
+ * The outcome of looking up one song's lyrics.
+ *
+ * NOT_FOUND means the provider answered that it has no lyrics for the song (a 404, an
+ * {"error": ...} body or blank lyrics), so asking again is pointless. FAILED means the lookup
+ * did not get a usable answer at all (network error, timeout, server error) and may work later.
+ * REJECTED means no request was sent because the provider is considered down or the rate limit
+ * was reached.
+ */
+public final class LyricsLookup {
+
+    enum Status { FOUND, NOT_FOUND, FAILED, REJECTED }
+
+    private static final LyricsLookup NOT_FOUND = new LyricsLookup(Status.NOT_FOUND, null);
+    private static final LyricsLookup FAILED = new LyricsLookup(Status.FAILED, null);
+    private static final LyricsLookup REJECTED = new LyricsLookup(Status.REJECTED, null);
+
+    private final Status status;
+    private final String lyrics;
+
+    private LyricsLookup(Status status, String lyrics) {
+        this.status = status;
+        this.lyrics = lyrics;
+    }
+
+    static LyricsLookup found(String lyrics) {
+        return new LyricsLookup(Status.FOUND, lyrics);
+    }
+
+    static LyricsLookup notFound() {
+        return NOT_FOUND;
+    }
+
+    static LyricsLookup failed() {
+        return FAILED;
+    }
+
+    static LyricsLookup rejected() {
+        return REJECTED;
+    }
+
+    Status getStatus() {
+        return status;
+    }
+
+    String getLyrics() {
+        return lyrics;
+    }
+
+    boolean isFound() {
+        return status == Status.FOUND;
+    }
+}
@@ -0,0 +1,155 @@
+package data_access;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import entity.SongCanonicalizer;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent index of songs the lyrics provider has no lyrics for.
+ *
+ * Each miss is remembered by the song's canonical key with an expiry time; until it expires the
+ * song is skipped without a lookup, and after that it is looked up again, in case lyrics were
+ * added for it since. Every miss lives for the same missTtl, so the entries are kept in the order
+ * they expire: expired ones are pruned from the front, and when the index holds maxEntries, the
+ * miss closest to expiring makes room for the new one.
+ */
+public class LyricsMissIndex {
+
+    private final String filePath;
+    private final int maxEntries;
+    private final Duration missTtl;
+    private final Clock clock;
+    private final Gson gson = new Gson();
+
+    private IndexData data;
+    private boolean dirty;
+
+    /**
+     * Constructs a LyricsMissIndex, loading a previously saved index if there is one.
+     * @param filePath the JSON file the index is saved to, or null to keep it in memory only
+     * @param maxEntries the maximum number of misses remembered
+     * @param missTtl how long a miss is remembered
+     * @throws IllegalArgumentException if maxEntries is less than 1
+     */
+    public LyricsMissIndex(String filePath, int maxEntries, Duration missTtl) {
+        this(filePath, maxEntries, missTtl, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a LyricsMissIndex that reads the time from the given clock.
+     * @param filePath the JSON file the index is saved to, or null to keep it in memory only
+     * @param maxEntries the maximum number of misses remembered
+     * @param missTtl how long a miss is remembered
+     * @param clock the clock expiry times are measured with
+     * @throws IllegalArgumentException if maxEntries is less than 1
+     */
+    public LyricsMissIndex(String filePath, int maxEntries, Duration missTtl, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1, got " + maxEntries);
+        }
+        this.filePath = filePath;
+        this.maxEntries = maxEntries;
+        this.missTtl = missTtl;
+        this.clock = clock;
+
+        final IndexData loaded = load();
+        this.data = loaded != null ? loaded : new IndexData();
+    }
+
+    /**
+     * Checks whether a song is known to have no lyrics.
+     * @param artist the song's artist
+     * @param title the song's title
+     * @return true if the song should be skipped without a lookup
+     */
+    public synchronized boolean isKnownMiss(String artist, String title) {
+        prune();
+        return data.recentMisses.containsKey(SongCanonicalizer.key(artist, title));
+    }
+
+    /**
+     * Records that the provider has no lyrics for a song.
+     * @param artist the song's artist
+     * @param title the song's title
+     */
+    public synchronized void recordMiss(String artist, String title) {
+        final String key = SongCanonicalizer.key(artist, title);
+        // re-inserted, so it moves to the end with the latest expiry
+        data.recentMisses.remove(key);
+        data.recentMisses.put(key, clock.millis() + missTtl.toMillis());
+        final Iterator<String> oldest = data.recentMisses.keySet().iterator();
+        while (data.recentMisses.size() > maxEntries) {
+            oldest.next();
+            oldest.remove();
+        }
+        dirty = true;
+    }
+
+    /**
+     * Writes the index to its file if it changed since the last save.
+     */
+    public synchronized void save() {
+        if (!dirty || filePath == null) {
+            return;
+        }
+        try (FileWriter writer = new FileWriter(filePath)) {
+            gson.toJson(data, writer);
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("Error saving lyrics miss index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the misses that have expired, which are all at the front.
+     */
+    private void prune() {
+        final long now = clock.millis();
+        final Iterator<Long> expiries = data.recentMisses.values().iterator();
+        while (expiries.hasNext()) {
+            if (expiries.next() > now) {
+                return;
+            }
+            expiries.remove();
+            dirty = true;
+        }
+    }
+
+    private IndexData load() {
+        if (filePath == null) {
+            return null;
+        }
+        try (FileReader reader = new FileReader(filePath)) {
+            final IndexData loaded = gson.fromJson(reader, IndexData.class);
+            if (loaded == null || loaded.recentMisses == null) {
+                return null;
+            }
+            // older files were not kept in expiry order
+            final LinkedHashMap<String, Long> ordered = new LinkedHashMap<>();
+            loaded.recentMisses.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .forEach(entry -> ordered.put(entry.getKey(), entry.getValue()));
+            loaded.recentMisses = ordered;
+            return loaded;
+        } catch (IOException | JsonParseException e) {
+            // File not found or unreadable, start with an empty index
+            return null;
+        }
+    }
+
+    /**
+     * The saved form of the index.
+     */
+    private static class IndexData {
+        private LinkedHashMap<String, Long> recentMisses = new LinkedHashMap<>();
+    }
+}
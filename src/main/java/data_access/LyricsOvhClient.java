@@ -0,0 +1,358 @@
+package data_access;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client for the lyrics.ovh API.
+ *
+ * Every lookup has a deadline: if no answer has arrived by then, it completes as FAILED, its
+ * requests are cancelled and the bodies still being read are closed, so a connection that stalls
+ * mid-body does not keep its reader waiting. Lookups can also be hedged: when a request has not
+ * answered within a chosen percentile of recently observed latencies, a second identical request
+ * is sent and whichever answers first wins. Only the slow tail gets a second request, so the extra load
+ * stays around (1 - percentile) of all lookups.
+ *
+ * Responses are parsed as a stream: only the "lyrics" or "error" field is read, everything else
+ * is skipped, and a response larger than the lyrics size limit is abandoned, so no response is
+ * ever held in memory as a whole String or JSON tree.
+ */
+public class LyricsOvhClient implements LyricsProvider {
+
+    private static final String LYRICS_URL = "https://api.lyrics.ovh/v1/%s/%s";
+    private static final int SUCCESS_CODE = 200;
+    private static final int NOT_FOUND_CODE = 404;
+    private static final int LATENCY_WINDOW = 128;
+    private static final int MIN_LATENCY_SAMPLES = 16;
+    private static final int DEFAULT_MAX_LYRICS_BYTES = 64 * 1024;
+
+    private final HttpClient client;
+    private final Executor bodyReader;
+    private final Duration requestTimeout;
+    private final double hedgePercentile;
+    private final Duration minHedgeDelay;
+    private final int maxLyricsBytes;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW);
+
+    /**
+     * Constructs a client without hedging.
+     * @param transport the shared HTTP transport
+     * @param requestTimeout the deadline for one lookup
+     */
+    public LyricsOvhClient(HttpTransport transport, Duration requestTimeout) {
+        this(transport, requestTimeout, 0, requestTimeout, DEFAULT_MAX_LYRICS_BYTES);
+    }
+
+    /**
+     * Constructs a client.
+     * @param transport the shared HTTP transport
+     * @param requestTimeout the deadline for one lookup, hedge included
+     * @param hedgePercentile the latency percentile after which a hedge request is sent,
+     *                        e.g. 0.95; 0 turns hedging off
+     * @param minHedgeDelay the shortest wait before hedging, also used until enough latencies are known
+     * @param maxLyricsBytes the largest response accepted; bigger ones count as having no usable lyrics
+     * @throws IllegalArgumentException if hedgePercentile is not in [0, 1)
+     */
+    public LyricsOvhClient(HttpTransport transport, Duration requestTimeout,
+                           double hedgePercentile, Duration minHedgeDelay, int maxLyricsBytes) {
+        if (hedgePercentile < 0 || hedgePercentile >= 1) {
+            throw new IllegalArgumentException("hedgePercentile must be in [0, 1), got " + hedgePercentile);
+        }
+        this.client = transport.getClient();
+        this.bodyReader = transport.getBodyReaderExecutor();
+        this.requestTimeout = requestTimeout;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelay = minHedgeDelay;
+        this.maxLyricsBytes = maxLyricsBytes;
+    }
+
+    @Override
+    public CompletableFuture<LyricsLookup> lookup(String artist, String title) {
+        final String url = String.format(LYRICS_URL,
+                URLEncoder.encode(artist, StandardCharsets.UTF_8),
+                URLEncoder.encode(title, StandardCharsets.UTF_8));
+
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .GET()
+                .header("Content-Type", "application/json")
+                .build();
+
+        final HedgedLookup lookup = new HedgedLookup(request);
+        lookup.sendAttempt();
+
+        final long hedgeDelay = hedgeDelayMillis();
+        if (hedgeDelay < requestTimeout.toMillis()) {
+            CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS).execute(lookup::sendHedge);
+        }
+        return lookup.result;
+    }
+
+    /**
+     * @return how long to wait before hedging, or Long.MAX_VALUE when hedging is off
+     */
+    private long hedgeDelayMillis() {
+        if (hedgePercentile == 0) {
+            return Long.MAX_VALUE;
+        }
+        final long observed = latencies.percentile(hedgePercentile, MIN_LATENCY_SAMPLES);
+        return Math.max(minHedgeDelay.toMillis(), observed);
+    }
+
+    /**
+     * Turns a lyrics.ovh response into a lookup outcome, reading the body as a stream.
+     * NOT_FOUND when the provider clearly has no lyrics for the song, or when the lyrics are
+     * over the size limit (asking again would not make them any smaller).
+     */
+    private LyricsLookup parseLyrics(HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == NOT_FOUND_CODE) {
+                return LyricsLookup.notFound();
+            }
+            if (response.statusCode() != SUCCESS_CODE) {
+                return LyricsLookup.failed();
+            }
+            if (response.headers().firstValueAsLong("Content-Length").orElse(0) > maxLyricsBytes) {
+                return LyricsLookup.notFound();
+            }
+
+            final JsonReader reader = new JsonReader(new InputStreamReader(
+                    new LimitedInputStream(body, maxLyricsBytes), StandardCharsets.UTF_8));
+            String lyrics = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if ("error".equals(name)) {
+                    return LyricsLookup.notFound();
+                }
+                if ("lyrics".equals(name) && reader.peek() == JsonToken.STRING) {
+                    lyrics = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            if (lyrics == null || lyrics.isBlank()) {
+                return LyricsLookup.notFound();
+            }
+            return LyricsLookup.found(lyrics);
+        } catch (LimitExceededException error) {
+            return LyricsLookup.notFound();
+        } catch (IOException | IllegalStateException error) {
+            // malformed JSON or the connection dropped mid-body
+            return LyricsLookup.failed();
+        }
+    }
+
+    /**
+     * One lookup: the first request plus an optional hedge, sharing one result.
+     */
+    private final class HedgedLookup {
+        private final HttpRequest request;
+        private final CompletableFuture<LyricsLookup> result = new CompletableFuture<>();
+        private final List<CompletableFuture<HttpResponse<InputStream>>> attempts = new ArrayList<>();
+        // responses whose headers arrived; their bodies may still be being read
+        private final List<HttpResponse<InputStream>> responses = new ArrayList<>();
+        private int pending;
+        private boolean hedged;
+
+        HedgedLookup(HttpRequest request) {
+            this.request = request;
+            result.completeOnTimeout(LyricsLookup.failed(), requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            // whoever finishes the result (winner, deadline or caller's cancel) stops the others
+            result.whenComplete((lookup, error) -> cancelAttempts());
+        }
+
+        synchronized void sendAttempt() {
+            if (result.isDone()) {
+                return;
+            }
+            final long start = System.nanoTime();
+            final CompletableFuture<HttpResponse<InputStream>> attempt =
+                    client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+            attempts.add(attempt);
+            pending++;
+            // reading the body blocks, so it runs neither on the HTTP client's own threads nor on
+            // the common pool, which is sized for CPU-bound work
+            attempt.handleAsync(this::readAttempt, bodyReader)
+                    .thenAccept(lookup -> onAttemptDone(lookup, start));
+        }
+
+        synchronized void sendHedge() {
+            if (!hedged) {
+                hedged = true;
+                sendAttempt();
+            }
+        }
+
+        private LyricsLookup readAttempt(HttpResponse<InputStream> response, Throwable error) {
+            if (error != null) {
+                return LyricsLookup.failed();
+            }
+            if (!track(response)) {
+                // the other attempt already won, or the deadline passed; just release the connection
+                closeBody(response);
+                return LyricsLookup.failed();
+            }
+            return parseLyrics(response);
+        }
+
+        /**
+         * Remembers a response so that finishing the result closes its body.
+         * @return false if the result is already finished
+         */
+        private synchronized boolean track(HttpResponse<InputStream> response) {
+            if (result.isDone()) {
+                return false;
+            }
+            responses.add(response);
+            return true;
+        }
+
+        private void onAttemptDone(LyricsLookup lookup, long start) {
+            final boolean lastAttempt;
+            synchronized (this) {
+                pending--;
+                // a failed attempt only decides the result if no other attempt can still answer
+                lastAttempt = pending == 0 && hedged;
+            }
+
+            if (lookup.getStatus() != LyricsLookup.Status.FAILED) {
+                latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                result.complete(lookup);
+            } else if (lastAttempt || hedgePercentile == 0) {
+                result.complete(lookup);
+            } else {
+                // the hedge was not sent yet; send it now instead of failing the lookup
+                sendHedge();
+            }
+        }
+
+        private synchronized void cancelAttempts() {
+            hedged = true;
+            for (CompletableFuture<HttpResponse<InputStream>> attempt : attempts) {
+                attempt.cancel(true);
+            }
+            // cancelling only stops requests still waiting for headers; a body being read is
+            // closed, which ends the blocked read
+            for (HttpResponse<InputStream> response : responses) {
+                closeBody(response);
+            }
+        }
+    }
+
+    private static void closeBody(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException closeError) {
+            // nothing left to clean up
+        }
+    }
+
+    /**
+     * Thrown by LimitedInputStream once more than the allowed number of bytes has been read.
+     */
+    private static final class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException(long limit) {
+            super("lyrics response is larger than " + limit + " bytes");
+        }
+    }
+
+    /**
+     * Input stream that fails instead of reading past a byte limit.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            consume(skipped);
+            return skipped;
+        }
+
+        private void consume(long bytes) throws LimitExceededException {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new LimitExceededException(limit);
+            }
+        }
+    }
+
+    /**
+     * Ring buffer of the most recent answer latencies in milliseconds.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @return the given percentile of the recorded latencies, or 0 with fewer than minSamples
+         */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return 0;
+            }
+            final long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.floor(percentile * count))];
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package data_access;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A source of song lyrics that is looked up one song at a time without blocking.
+ * Implementations can wrap each other to add behaviour around the actual provider.
+ */
+public interface LyricsProvider {
+
+    /**
+     * Looks up a song's lyrics.
+     * Cancelling the returned future should stop any work still in flight.
+     * @param artist the song's artist
+     * @param title the song's title
+     * @return a future that completes normally with the lookup outcome, unless cancelled
+     */
+    CompletableFuture<LyricsLookup> lookup(String artist, String title);
+}
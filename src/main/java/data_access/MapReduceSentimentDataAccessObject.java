@@ -0,0 +1,198 @@
+package data_access;
+
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+import use_case.analyze_playlist.SentimentAggregator;
+import use_case.analyze_playlist.SentimentDataAccessInterface;
+import use_case.analyze_playlist.SentimentStreamListener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A SentimentDataAccessInterface for large playlists that splits their lyrics into chunks.
+ *
+ * Lyrics within the chunk size are passed to the delegate as they are. Larger lyrics are split
+ * at song boundaries into chunks of about the chunk size, the chunks are analyzed by the delegate
+ * concurrently (map), and their results are merged locally with a SentimentAggregator (reduce),
+ * without another request. The time an analysis takes therefore stays close to that of one
+ * chunk as playlists grow, instead of growing with one ever larger prompt. A song longer than
+ * the chunk size is a chunk of its own. The threads the chunks are analyzed on are released by close.
+ */
+public class MapReduceSentimentDataAccessObject implements SentimentDataAccessInterface, AutoCloseable {
+
+    private final SentimentDataAccessInterface delegate;
+    private final SentimentAggregator sentimentAggregator;
+    private final int chunkTokens;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a MapReduceSentimentDataAccessObject.
+     * @param delegate the data access object each chunk is analyzed with
+     * @param resultFactory the factory for the merged results
+     * @param chunkTokens the largest number of lyrics tokens in one chunk; longer lyrics are split
+     * @param parallelism the number of chunks analyzed at the same time
+     * @throws IllegalArgumentException if chunkTokens or parallelism is less than 1
+     */
+    public MapReduceSentimentDataAccessObject(SentimentDataAccessInterface delegate,
+                                              SentimentResultFactory resultFactory,
+                                              int chunkTokens, int parallelism) {
+        if (chunkTokens < 1) {
+            throw new IllegalArgumentException("chunkTokens must be at least 1, got " + chunkTokens);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        this.delegate = delegate;
+        this.sentimentAggregator = new SentimentAggregator(resultFactory);
+        this.chunkTokens = chunkTokens;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "sentiment-chunk-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getChunkTokens() {
+        return chunkTokens;
+    }
+
+    /**
+     * Stops the threads chunks are analyzed on. Chunks still being analyzed are interrupted, and
+     * lyrics longer than the chunk size may not be analyzed afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics) throws IOException {
+        return analyzeSentiment(combinedLyrics, null);
+    }
+
+    /**
+     * Analyzes the lyrics, in chunks if they are longer than the chunk size.
+     * If one chunk fails, the others are cancelled and the failure is thrown.
+     * Only lyrics analyzed in one piece are streamed to the listener.
+     */
+    @Override
+    public SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener)
+            throws IOException {
+        if (GeminiPromptBuilder.estimateTokens(combinedLyrics) <= chunkTokens) {
+            return delegate.analyzeSentiment(combinedLyrics, listener);
+        }
+        final List<Chunk> chunks = split(combinedLyrics);
+        if (chunks.size() == 1) {
+            return delegate.analyzeSentiment(combinedLyrics, listener);
+        }
+
+        final List<Future<SentimentResult>> running = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            running.add(executor.submit(() -> delegate.analyzeSentiment(chunk.lyrics)));
+        }
+
+        final List<String> labels = new ArrayList<>(chunks.size());
+        final List<SentimentResult> results = new ArrayList<>(chunks.size());
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                results.add(running.get(i).get());
+                labels.add(chunks.get(i).label());
+            }
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Analyzing part of the lyrics failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException interrupted = new InterruptedIOException("API request interrupted.");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+        finally {
+            for (Future<SentimentResult> chunk : running) {
+                chunk.cancel(true);
+            }
+        }
+        return sentimentAggregator.aggregate(labels, results, "parts");
+    }
+
+    /**
+     * Passes the lyrics within the chunk size on to the delegate as one batch, and analyzes
+     * larger ones in chunks.
+     */
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) throws IOException {
+        return analyzeSentimentBatch(lyricsList, null);
+    }
+
+    @Override
+    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList, SentimentStreamListener listener)
+            throws IOException {
+        final SentimentResult[] results = new SentimentResult[lyricsList.size()];
+        final List<Integer> smallIndices = new ArrayList<>();
+        final List<String> smallLyrics = new ArrayList<>();
+        for (int i = 0; i < lyricsList.size(); i++) {
+            if (GeminiPromptBuilder.estimateTokens(lyricsList.get(i)) <= chunkTokens) {
+                smallIndices.add(i);
+                smallLyrics.add(lyricsList.get(i));
+            }
+            else {
+                results[i] = analyzeSentiment(lyricsList.get(i));
+            }
+        }
+        if (!smallLyrics.isEmpty()) {
+            final List<SentimentResult> analyzed = delegate.analyzeSentimentBatch(smallLyrics, listener);
+            for (int i = 0; i < smallIndices.size(); i++) {
+                results[smallIndices.get(i)] = analyzed.get(i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Packs consecutive songs into chunks of at most the chunk size.
+     */
+    private List<Chunk> split(String combinedLyrics) {
+        final int chunkChars = chunkTokens * GeminiPromptBuilder.CHARS_PER_TOKEN;
+        final List<Chunk> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int chunkEnd = 0;
+        int firstSong = 1;
+        int songs = 0;
+        for (int[] song : GeminiPromptBuilder.songRanges(combinedLyrics)) {
+            if (songs > 0 && song[1] - chunkStart > chunkChars) {
+                chunks.add(new Chunk(combinedLyrics.substring(chunkStart, chunkEnd), firstSong, firstSong + songs - 1));
+                chunkStart = song[0];
+                firstSong += songs;
+                songs = 0;
+            }
+            chunkEnd = song[1];
+            songs++;
+        }
+        chunks.add(new Chunk(combinedLyrics.substring(chunkStart, chunkEnd), firstSong, firstSong + songs - 1));
+        return chunks;
+    }
+
+    /**
+     * Consecutive songs analyzed together.
+     */
+    private record Chunk(String lyrics, int firstSong, int lastSong) {
+        String label() {
+            return firstSong == lastSong ? "Song " + firstSong : "Songs " + firstSong + "-" + lastSong;
+        }
+    }
+}
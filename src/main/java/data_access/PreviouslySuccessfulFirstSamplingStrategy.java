@@ -0,0 +1,62 @@
+package data_access;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import entity.SongCanonicalizer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tries songs that returned lyrics earlier in this session first, then the rest.
+ * Both groups are shuffled, so repeat analyses still vary among the known-good songs.
+ * Songs that came back without lyrics are moved to the very end.
+ */
+public class PreviouslySuccessfulFirstSamplingStrategy implements SongSamplingStrategy {
+
+    private final Set<String> found = ConcurrentHashMap.newKeySet();
+    private final Set<String> notFound = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public int[] order(JsonArray songs) {
+        final int[] order = new int[songs.size()];
+        // fill known-good songs from the front and known misses from the back
+        int front = 0;
+        int back = order.length;
+        final int[] unknown = new int[songs.size()];
+        int unknownCount = 0;
+
+        for (int i = 0; i < songs.size(); i++) {
+            final JsonObject song = songs.get(i).getAsJsonObject();
+            final String key = SongCanonicalizer.key(
+                    song.get("artist").getAsString(), song.get("title").getAsString());
+            if (found.contains(key)) {
+                order[front++] = i;
+            }
+            else if (notFound.contains(key)) {
+                order[--back] = i;
+            }
+            else {
+                unknown[unknownCount++] = i;
+            }
+        }
+        System.arraycopy(unknown, 0, order, front, unknownCount);
+
+        RandomSamplingStrategy.shuffle(order, 0, front);
+        RandomSamplingStrategy.shuffle(order, front, back);
+        return order;
+    }
+
+    @Override
+    public void recordOutcome(String artist, String title, boolean wasFound) {
+        final String key = SongCanonicalizer.key(artist, title);
+        if (wasFound) {
+            found.add(key);
+            notFound.remove(key);
+        }
+        else {
+            notFound.add(key);
+            found.remove(key);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package data_access;
+
+import com.google.gson.JsonArray;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tries songs in a uniformly random order.
+ */
+public class RandomSamplingStrategy implements SongSamplingStrategy {
+
+    @Override
+    public int[] order(JsonArray songs) {
+        final int[] order = new int[songs.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        shuffle(order, 0, order.length);
+        return order;
+    }
+
+    /**
+     * Fisher-Yates shuffle of order[from, to).
+     */
+    static void shuffle(int[] order, int from, int to) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = to - 1; i > from; i--) {
+            final int j = from + random.nextInt(i - from + 1);
+            final int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package data_access;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a lyrics provider with a rate limiter and a circuit breaker.
+ *
+ * Requests are spaced out by the rate limiter; a request that would have to wait longer than
+ * maxQueueWait is refused. While the circuit breaker is open, every lookup is refused at once.
+ * Refused lookups complete as REJECTED without any network traffic, so callers fail fast while
+ * the provider is down instead of waiting for each request to time out.
+ */
+public class ResilientLyricsProvider implements LyricsProvider {
+
+    private final LyricsProvider delegate;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration maxQueueWait;
+
+    /**
+     * Constructs a ResilientLyricsProvider.
+     * @param delegate the provider doing the actual lookups
+     * @param rateLimiter the limiter spacing out requests
+     * @param circuitBreaker the breaker tracking the provider's health
+     * @param maxQueueWait the longest a lookup may wait for the rate limiter
+     */
+    public ResilientLyricsProvider(LyricsProvider delegate, TokenBucketRateLimiter rateLimiter,
+                                   CircuitBreaker circuitBreaker, Duration maxQueueWait) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.maxQueueWait = maxQueueWait;
+    }
+
+    @Override
+    public CompletableFuture<LyricsLookup> lookup(String artist, String title) {
+        if (!circuitBreaker.allowRequest()) {
+            return CompletableFuture.completedFuture(LyricsLookup.rejected());
+        }
+        final long wait = rateLimiter.reserve(maxQueueWait);
+        if (wait < 0) {
+            circuitBreaker.release();
+            return CompletableFuture.completedFuture(LyricsLookup.rejected());
+        }
+
+        final CompletableFuture<LyricsLookup> result = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS).execute(() -> {
+            if (result.isDone()) {
+                // cancelled while waiting for the rate limiter
+                circuitBreaker.release();
+                return;
+            }
+            final CompletableFuture<LyricsLookup> lookup = delegate.lookup(artist, title);
+            result.whenComplete((outcome, error) -> lookup.cancel(true));
+            lookup.whenComplete((outcome, error) -> {
+                if (error != null) {
+                    circuitBreaker.release();
+                } else if (outcome.getStatus() == LyricsLookup.Status.FAILED) {
+                    circuitBreaker.recordFailure();
+                } else {
+                    circuitBreaker.recordSuccess();
+                }
+                result.complete(error == null ? outcome : LyricsLookup.failed());
+            });
+        });
+        return result;
+    }
+}
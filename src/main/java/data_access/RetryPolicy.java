@@ -0,0 +1,183 @@
+package data_access;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries HTTP requests that failed for a reason that is likely to pass: throttling (429),
+ * a temporarily unavailable server (500, 502, 503, 504) or a network error.
+ *
+ * Before each retry it waits as long as the server asked for in a Retry-After header, or else a
+ * random time between zero and an exponentially growing limit ("full jitter"), so that clients
+ * throttled together do not all come back at the same moment. A server asking for a longer wait
+ * than the policy allows is not retried.
+ *
+ * Retries are limited by a budget shared by every request sent through the policy: each first
+ * attempt adds a fraction of a retry to the budget, up to a maximum, and each retry takes a whole
+ * one. While a service is healthy the budget fills up; when everything fails it runs out, and the
+ * extra load from retries stays a small fraction of the regular load instead of multiplying it.
+ * The response of the last attempt is returned as it is, so callers handle an unsuccessful status
+ * as before.
+ */
+public class RetryPolicy {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 4;
+    private static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(250);
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(8);
+    private static final double DEFAULT_BUDGET_PER_REQUEST = 0.2;
+    private static final double DEFAULT_MAX_BUDGET = 10;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final double budgetPerRequest;
+    private final double maxBudget;
+    private double budget;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_BUDGET_PER_REQUEST,
+                DEFAULT_MAX_BUDGET);
+    }
+
+    /**
+     * Constructs a RetryPolicy.
+     * @param maxAttempts the most attempts made for one request, the first one included
+     * @param baseDelay the limit of the random wait before the first retry; it doubles for each further retry
+     * @param maxDelay the longest wait before a retry, whether chosen at random or asked for by the server
+     * @param budgetPerRequest the part of a retry each first attempt adds to the shared budget
+     * @param maxBudget the most retries the budget can hold, which it starts with
+     * @throws IllegalArgumentException if maxAttempts is less than 1 or a budget value is negative
+     */
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay,
+                       double budgetPerRequest, double maxBudget) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1, got " + maxAttempts);
+        }
+        if (budgetPerRequest < 0 || maxBudget < 0) {
+            throw new IllegalArgumentException("The retry budget must not be negative");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.budgetPerRequest = budgetPerRequest;
+        this.maxBudget = maxBudget;
+        this.budget = maxBudget;
+    }
+
+    /**
+     * Sends a request, retrying it as long as the policy allows.
+     * @param client the client to send with
+     * @param request the request; its body publisher must be able to publish the body again
+     * @param handler the handler for the response body
+     * @return the response of the last attempt
+     * @throws IOException if the last attempt failed with a network error
+     * @throws InterruptedException if interrupted while sending or waiting to retry
+     */
+    public <T> HttpResponse<T> send(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        depositRequest();
+        for (int attempt = 1; ; attempt++) {
+            final HttpResponse<T> response;
+            try {
+                response = client.send(request, handler);
+            }
+            catch (IOException e) {
+                if (attempt >= maxAttempts || !withdrawRetry()) {
+                    throw e;
+                }
+                Thread.sleep(backoffMillis(attempt));
+                continue;
+            }
+
+            if (!isRetryable(response.statusCode()) || attempt >= maxAttempts) {
+                return response;
+            }
+            final long delay = retryAfterMillis(response).orElse(backoffMillis(attempt));
+            if (delay > maxDelayMillis || !withdrawRetry()) {
+                return response;
+            }
+            discard(response);
+            Thread.sleep(delay);
+        }
+    }
+
+    static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * @return a random wait between zero and the limit for this retry
+     */
+    private long backoffMillis(int attempt) {
+        final long limit = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(limit + 1);
+    }
+
+    /**
+     * Reads a Retry-After header, given either in seconds or as an HTTP date.
+     */
+    static Optional<Long> retryAfterMillis(HttpResponse<?> response) {
+        final Optional<String> header = response.headers().firstValue("Retry-After");
+        if (header.isEmpty()) {
+            return Optional.empty();
+        }
+        final String value = header.get().trim();
+        try {
+            return Optional.of(Math.max(0, Long.parseLong(value) * 1000));
+        }
+        catch (NumberFormatException notSeconds) {
+            try {
+                final ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Optional.of(Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis()));
+            }
+            catch (DateTimeParseException notADate) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private synchronized void depositRequest() {
+        budget = Math.min(maxBudget, budget + budgetPerRequest);
+    }
+
+    private synchronized boolean withdrawRetry() {
+        if (budget < 1) {
+            budgetExhausted.incrementAndGet();
+            return false;
+        }
+        budget -= 1;
+        retries.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Releases the body of a response that is not going to be read.
+     */
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof AutoCloseable body) {
+            try {
+                body.close();
+            }
+            catch (Exception ignored) {
+                // the connection is dropped instead of being reused
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts + ", retries=" + retries + ", budgetExhausted="
+                + budgetExhausted + ", budget=" + String.format("%.1f", budget) + "}";
+    }
+}
@@ -0,0 +1,30 @@
+package data_access;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Decides in which order a playlist's songs are tried when looking for lyrics.
+ *
+ * A strategy returns a permutation of song indices instead of a reordered copy of the songs,
+ * so large playlists cost one int per song and are never copied.
+ */
+public interface SongSamplingStrategy {
+
+    /**
+     * Orders the songs to try.
+     * @param songs the playlist's songs, as {"artist": ..., "title": ...} objects; must not be modified
+     * @return the indices of all songs, in the order they should be tried
+     */
+    int[] order(JsonArray songs);
+
+    /**
+     * Tells the strategy how a lookup went, so it can adapt later orders.
+     * Only called for definite answers, not for network errors.
+     * @param artist the song's artist
+     * @param title the song's title
+     * @param found whether lyrics were found
+     */
+    default void recordOutcome(String artist, String title, boolean found) {
+        // stateless strategies ignore outcomes
+    }
+}
@@ -0,0 +1,160 @@
+package data_access;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+import entity.SongCanonicalizer;
+import use_case.analyze_playlist.SongSentimentDataAccessInterface;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persists the sentiment of individual songs in a JSON file.
+ *
+ * Songs are keyed by their canonical artist and title, together with the model name and prompt
+ * version that produced the result, so a changed prompt does not reuse results of the old one.
+ * At most maxEntries songs are kept; the least recently used are dropped first. Stored songs are
+ * written to the file on flush, once per batch, and outside the lock on the songs, so concurrent
+ * lookups are not blocked by a save.
+ */
+public class SongSentimentDataAccessObject implements SongSentimentDataAccessInterface {
+
+    private static final Type ENTRIES_TYPE = new TypeToken<LinkedHashMap<String, StoredSentiment>>() {}.getType();
+
+    private final SentimentResultFactory sentimentResultFactory;
+    private final String modelName;
+    private final String promptVersion;
+    private final Path filePath;
+    private final int maxEntries;
+    private final Gson gson = new Gson();
+    private final Map<String, StoredSentiment> entries;
+    private final Object saveLock = new Object();
+    private boolean dirty;
+
+    /**
+     * Constructs the store, loading previously saved songs if there are any.
+     * @param resultFactory the factory that recreates stored SentimentResult entities
+     * @param modelName the model the song results come from
+     * @param promptVersion a tag that changes whenever the prompt changes
+     * @param filePath the JSON file songs are saved to, or null to keep them in memory only
+     * @param maxEntries the maximum number of songs kept
+     */
+    public SongSentimentDataAccessObject(SentimentResultFactory resultFactory, String modelName,
+                                         String promptVersion, String filePath, int maxEntries) {
+        this.sentimentResultFactory = resultFactory;
+        this.modelName = modelName;
+        this.promptVersion = promptVersion;
+        this.filePath = filePath == null ? null : Paths.get(filePath);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredSentiment> eldest) {
+                return size() > SongSentimentDataAccessObject.this.maxEntries;
+            }
+        };
+        this.entries.putAll(load());
+    }
+
+    @Override
+    public synchronized SentimentResult getSongSentiment(String artist, String title) {
+        final StoredSentiment stored = entries.get(key(artist, title));
+        if (stored == null) {
+            return null;
+        }
+        return sentimentResultFactory.create(stored.sentimentWord, stored.sentimentExplanation);
+    }
+
+    @Override
+    public void saveSongSentiment(String artist, String title, SentimentResult result) {
+        synchronized (this) {
+            entries.put(key(artist, title),
+                    new StoredSentiment(artist, title, result.getSentimentWord(), result.getSentimentExplanation()));
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void flush() {
+        save();
+    }
+
+    private String key(String artist, String title) {
+        return LyricsCache.sha256(modelName + "\n" + promptVersion + "\n" + SongCanonicalizer.key(artist, title));
+    }
+
+    /**
+     * Writes the entries to the file if they changed since the last write. The file is written
+     * outside the lock on the entries, so lookups are not blocked while it is written, and results
+     * added during a write are all written by the next one.
+     */
+    private void save() {
+        if (filePath == null) {
+            return;
+        }
+        synchronized (saveLock) {
+            final Map<String, StoredSentiment> snapshot;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                snapshot = new LinkedHashMap<>(entries);
+                dirty = false;
+            }
+            try {
+                final Path directory = filePath.toAbsolutePath().getParent();
+                final Path temp = Files.createTempFile(directory, "song_sentiments", ".tmp");
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    gson.toJson(snapshot, ENTRIES_TYPE, writer);
+                }
+                Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                synchronized (this) {
+                    dirty = true;
+                }
+                System.err.println("Error saving song sentiments: " + e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, StoredSentiment> load() {
+        if (filePath == null || !Files.exists(filePath)) {
+            return Map.of();
+        }
+        try (Reader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            final Map<String, StoredSentiment> loaded = gson.fromJson(reader, ENTRIES_TYPE);
+            return loaded == null ? Map.of() : loaded;
+        } catch (IOException | JsonParseException e) {
+            // unreadable file: start empty, it is rewritten on the next save
+            return Map.of();
+        }
+    }
+
+    /**
+     * One song's sentiment, stored as JSON. Artist and title are kept for readability only.
+     */
+    private static class StoredSentiment {
+        private final String artist;
+        private final String title;
+        private final String sentimentWord;
+        private final String sentimentExplanation;
+
+        StoredSentiment(String artist, String title, String sentimentWord, String sentimentExplanation) {
+            this.artist = artist;
+            this.title = title;
+            this.sentimentWord = sentimentWord;
+            this.sentimentExplanation = sentimentExplanation;
+        }
+    }
+}
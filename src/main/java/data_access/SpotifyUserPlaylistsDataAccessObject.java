@@ -30,11 +30,26 @@ public class SpotifyUserPlaylistsDataAccessObject {
 
     private static final String BASE_URL = "https://api.spotify.com/v1";
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final HttpClient httpClient;
     private final PlaylistFactory playlistFactory;
+    private final RetryPolicy retryPolicy;
 
-    public SpotifyUserPlaylistsDataAccessObject(PlaylistFactory playlistFactory) {
+    public SpotifyUserPlaylistsDataAccessObject(PlaylistFactory playlistFactory, HttpTransport transport) {
+        this(playlistFactory, transport, new RetryPolicy());
+    }
+
+    /**
+     * Constructs the DAO with a retry policy, so that throttled (429) and temporarily failed
+     * requests are sent again after a wait instead of failing at once.
+     * @param playlistFactory the factory for Playlist entities
+     * @param transport the shared HTTP transport
+     * @param retryPolicy the policy deciding whether and when a failed request is sent again
+     */
+    public SpotifyUserPlaylistsDataAccessObject(PlaylistFactory playlistFactory, HttpTransport transport,
+                                                RetryPolicy retryPolicy) {
         this.playlistFactory = playlistFactory;
+        this.httpClient = transport.getClient();
+        this.retryPolicy = retryPolicy;
     }
 
     /**
@@ -76,6 +91,7 @@ public class SpotifyUserPlaylistsDataAccessObject {
 
     /**
      * Helper: send a GET request to a Spotify Web API endpoint and parse the JSON response.
+     * Throttled and temporarily failed requests are retried as the retry policy allows.
      */
     private JsonObject sendGet(String endpoint, String spotifyUserToken)
             throws IOException, InterruptedException {
@@ -88,7 +104,7 @@ public class SpotifyUserPlaylistsDataAccessObject {
                 .build();
 
         HttpResponse<String> response =
-                httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                retryPolicy.send(httpClient, request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() < 200 || response.statusCode() >= 300) {
             throw new IOException(
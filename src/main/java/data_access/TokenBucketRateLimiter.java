@@ -0,0 +1,51 @@
+package data_access;
+
+import java.time.Duration;
+
+/**
+ * Token-bucket rate limiter.
+ *
+ * The bucket holds up to capacity tokens and refills at a steady rate. Every request takes one
+ * token; bursts up to capacity go through at once, after that requests are spaced out to the
+ * refill rate. Instead of blocking, a caller reserves a token and is told how long to wait.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructs a TokenBucketRateLimiter that starts full.
+     * @param capacity the largest burst allowed
+     * @param tokensPerSecond the sustained request rate
+     */
+    public TokenBucketRateLimiter(int capacity, double tokensPerSecond) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Reserves a token.
+     * @param maxWait the longest the caller is willing to wait for its turn
+     * @return the nanoseconds to wait before sending, or -1 if that would exceed maxWait
+     *         (in which case nothing is reserved)
+     */
+    public synchronized long reserve(Duration maxWait) {
+        final long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+
+        final long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        if (wait > maxWait.toNanos()) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+}
@@ -7,6 +7,7 @@ package entity;
 public class SentimentResult {
     private final String sentimentWord;
     private final String sentimentExplanation;
+    private final boolean estimate;
 
     /**
      * Constructs a SentimentResult value object.
@@ -17,8 +18,23 @@ public class SentimentResult {
     public SentimentResult(
             String sentimentWord,
             String sentimentExplanation) {
+        this(sentimentWord, sentimentExplanation, false);
+    }
+
+    /**
+     * Constructs a SentimentResult value object.
+     *
+     * @param sentimentWord A high-level, descriptive word or two for the playlist's feel.
+     * @param sentimentExplanation The text explaining the feeling.
+     * @param estimate True if the result is a quick local estimate rather than the LLM's analysis.
+     */
+    public SentimentResult(
+            String sentimentWord,
+            String sentimentExplanation,
+            boolean estimate) {
         this.sentimentWord = sentimentWord;
         this.sentimentExplanation = sentimentExplanation;
+        this.estimate = estimate;
     }
 
     public String getSentimentWord() {
@@ -28,4 +44,8 @@ public class SentimentResult {
     public String getSentimentExplanation() {
         return sentimentExplanation;
     }
+
+    public boolean isEstimate() {
+        return estimate;
+    }
 }
\ No newline at end of file
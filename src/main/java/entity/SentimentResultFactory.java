@@ -4,4 +4,8 @@ public class SentimentResultFactory {
     public SentimentResult create(String sentimentWord, String sentimentExplanation) {
         return new SentimentResult(sentimentWord, sentimentExplanation);
     }
+
+    public SentimentResult createEstimate(String sentimentWord, String sentimentExplanation) {
+        return new SentimentResult(sentimentWord, sentimentExplanation, true);
+    }
 }
@@ -0,0 +1,99 @@
+package entity;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes Spotify artist names and song titles.
+ *
+ * Spotify titles carry release details that lyrics providers do not know about, such as
+ * "Song - Remastered 2011", "Song (feat. X)" or "Song - Live at Wembley". The canonical form
+ * drops those, so that it can be looked up when the raw title misses. The key form also folds
+ * case, accents and punctuation, so that every variant of a song shares one cache entry.
+ */
+public final class SongCanonicalizer {
+
+    /**
+     * Words that mark a parenthesized or dash-separated part of a title as a release detail
+     * rather than part of the song's name.
+     */
+    private static final Pattern RELEASE_DETAIL = Pattern.compile(
+            "\\b(feat|ft|featuring|with|remaster|remastered|live|version|edit|mix|remix|mono|stereo"
+                    + "|acoustic|demo|bonus|explicit|deluxe|anniversary|from|session|instrumental)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern BRACKETED = Pattern.compile("\\s*[(\\[]([^)\\]]*)[)\\]]");
+    private static final Pattern DASH_SUFFIX = Pattern.compile("\\s+-\\s+(.*)$");
+    private static final Pattern FEATURING = Pattern.compile(
+            "\\s+(feat\\.?|ft\\.|featuring)\\s+.*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern APOSTROPHE = Pattern.compile("['\u2019]");
+    private static final Pattern NOT_LETTER_OR_DIGIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SongCanonicalizer() {
+    }
+
+    /**
+     * @param artist an artist name as given by Spotify
+     * @return the artist without featuring credits
+     */
+    public static String canonicalArtist(String artist) {
+        return orOriginal(stripBracketed(FEATURING.matcher(artist.trim()).replaceFirst("")), artist);
+    }
+
+    /**
+     * @param title a song title as given by Spotify
+     * @return the title without featuring credits, remaster, live, edit or version suffixes
+     */
+    public static String canonicalTitle(String title) {
+        String canonical = stripBracketed(title.trim());
+        final Matcher dash = DASH_SUFFIX.matcher(canonical);
+        if (dash.find() && RELEASE_DETAIL.matcher(dash.group(1)).find()) {
+            canonical = canonical.substring(0, dash.start());
+        }
+        canonical = FEATURING.matcher(canonical).replaceFirst("");
+        return orOriginal(canonical, title);
+    }
+
+    /**
+     * @return true if the canonical form of the song differs from the given one
+     */
+    public static boolean hasCanonicalVariant(String artist, String title) {
+        return !canonicalArtist(artist).equals(artist.trim()) || !canonicalTitle(title).equals(title.trim());
+    }
+
+    /**
+     * Builds the key identifying a song in caches and indexes. All variants of a title that
+     * canonicalize to the same song, and that differ only in case, accents or punctuation,
+     * get the same key.
+     */
+    public static String key(String artist, String title) {
+        return fold(canonicalArtist(artist)) + "\n" + fold(canonicalTitle(title));
+    }
+
+    private static String stripBracketed(String text) {
+        final Matcher bracketed = BRACKETED.matcher(text);
+        final StringBuilder stripped = new StringBuilder(text.length());
+        while (bracketed.find()) {
+            final boolean detail = RELEASE_DETAIL.matcher(bracketed.group(1)).find();
+            bracketed.appendReplacement(stripped, detail ? "" : Matcher.quoteReplacement(bracketed.group()));
+        }
+        bracketed.appendTail(stripped);
+        return stripped.toString().trim();
+    }
+
+    private static String fold(String text) {
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        final String unaccented = APOSTROPHE.matcher(COMBINING_MARKS.matcher(decomposed).replaceAll(""))
+                .replaceAll("");
+        final String folded = NOT_LETTER_OR_DIGIT.matcher(unaccented.toLowerCase(Locale.ROOT))
+                .replaceAll(" ").trim();
+        // names made only of punctuation, such as "!!!", would otherwise all fold to ""
+        return folded.isEmpty() ? text.trim().toLowerCase(Locale.ROOT) : folded;
+    }
+
+    private static String orOriginal(String canonical, String original) {
+        return canonical.isEmpty() ? original.trim() : canonical;
+    }
+}
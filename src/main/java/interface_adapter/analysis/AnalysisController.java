@@ -4,6 +4,8 @@ import com.google.gson.JsonArray;
 import use_case.analyze_playlist.AnalyzePlaylistInputBoundary;
 import use_case.analyze_playlist.AnalyzePlaylistInputData;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * The Controller. It takes input from the view and executes the corresponding use case.
  */
@@ -26,4 +28,15 @@ public class AnalysisController {
 
         analyzePlaylistInteractor.execute(analyzePlaylistInputData);
     }
+
+    /**
+     * Starts the analysis in the background.
+     * @param playlistId the unique identifier for the playlist
+     * @param playlistName the display name of the playlist
+     * @param songs the list of songs contained in the playlist
+     * @return a future completed once the outcome has been presented; cancel it to stop the analysis
+     */
+    public CompletableFuture<Void> executeAsync(String playlistId, String playlistName, JsonArray songs) {
+        return analyzePlaylistInteractor.executeAsync(new AnalyzePlaylistInputData(playlistId, playlistName, songs));
+    }
 }
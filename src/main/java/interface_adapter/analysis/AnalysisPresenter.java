@@ -2,6 +2,7 @@ package interface_adapter.analysis;
 
 import use_case.analyze_playlist.AnalyzePlaylistOutputBoundary;
 import use_case.analyze_playlist.AnalyzePlaylistOutputData;
+import use_case.analyze_playlist.AnalyzePlaylistProgressData;
 import entity.SentimentResult; // <-- NEW: Import the Entity to construct it
 
 import javax.swing.*;
@@ -32,15 +33,126 @@ public class AnalysisPresenter implements AnalyzePlaylistOutputBoundary {
             // that the AnalysisState expects using the primitive getters.
             SentimentResult result = new SentimentResult(
                     outputData.getOverallCategory(),
-                    outputData.getSummaryText()
+                    outputData.getSummaryText(),
+                    outputData.isEstimate()
             );
 
             state.setLoading(false);
+            state.setProvisional(false);
+            state.setStreaming(false);
             state.setResult(result); // Now we pass the correct object type
+            state.setCompactionSavings(outputData.getLyricsBytesSaved(), outputData.getEstimatedTokensSaved());
             analysisViewModel.firePropertyChanged();
         });
     }
 
+    /**
+     * Called by the Interactor with a quick estimate while the full analysis is still running.
+     * The estimate is shown right away; loading continues until the final result arrives.
+     * @param outputData The output data containing the estimated result fields.
+     */
+    @Override
+    public void prepareProvisionalView(AnalyzePlaylistOutputData outputData) {
+        SwingUtilities.invokeLater(() -> {
+            AnalysisState state = analysisViewModel.getState();
+            if (!state.isLoading()) {
+                // the final result already arrived
+                return;
+            }
+
+            SentimentResult estimate = new SentimentResult(
+                    outputData.getOverallCategory(),
+                    outputData.getSummaryText(),
+                    true
+            );
+
+            state.setResult(estimate);
+            state.setProvisional(true);
+            state.setCompactionSavings(outputData.getLyricsBytesSaved(), outputData.getEstimatedTokensSaved());
+            analysisViewModel.firePropertyChanged();
+        });
+    }
+
+    /**
+     * Called by the Interactor each time more of the full analysis has been generated.
+     * The text received so far replaces any estimate; loading continues until the final result arrives.
+     * @param outputData The output data containing the result fields received so far.
+     */
+    @Override
+    public void preparePartialView(AnalyzePlaylistOutputData outputData) {
+        SwingUtilities.invokeLater(() -> {
+            AnalysisState state = analysisViewModel.getState();
+            if (!state.isLoading()) {
+                // the final result already arrived
+                return;
+            }
+
+            state.setResult(new SentimentResult(outputData.getOverallCategory(), outputData.getSummaryText()));
+            state.setProvisional(false);
+            state.setStreaming(true);
+            state.setCompactionSavings(outputData.getLyricsBytesSaved(), outputData.getEstimatedTokensSaved());
+            analysisViewModel.firePropertyChanged();
+        });
+    }
+
+    /**
+     * Called by the Interactor at a fixed rate while the analysis runs.
+     * Turns the stage and counts into a percentage and a line of text for the progress bar,
+     * and keeps the time spent in each stage, which stays shown after the result arrives.
+     * The lyrics lookup fills the first 40%, sending the prompt 50%, the first part of the
+     * response 75%, and the whole response 100%.
+     * @param progressData How far the analysis has come.
+     */
+    @Override
+    public void prepareProgressView(AnalyzePlaylistProgressData progressData) {
+        SwingUtilities.invokeLater(() -> {
+            AnalysisState state = analysisViewModel.getState();
+            if (!state.isLoading()) {
+                // the final result already arrived
+                return;
+            }
+
+            final long kilobytes = Math.round(progressData.getBytesCollected() / 1024.0);
+            switch (progressData.getStage()) {
+                case LOOKING_UP_LYRICS -> state.setProgress((int) (40 * lyricsFraction(progressData)),
+                        "Looking up lyrics: " + progressData.getLyricsFound() + " found in "
+                                + progressData.getSongsAttempted() + " songs (" + kilobytes + " KB)");
+                case PROMPT_SENT -> state.setProgress(50,
+                        "Lyrics sent (" + kilobytes + " KB), waiting for the analysis...");
+                case RECEIVING_RESPONSE -> state.setProgress(75, "Receiving the analysis...");
+                case RESPONSE_RECEIVED -> state.setProgress(100, "Analysis received");
+            }
+            state.setStageTimings(stageTimings(progressData));
+            analysisViewModel.firePropertyChanged();
+        });
+    }
+
+    private static double lyricsFraction(AnalyzePlaylistProgressData progressData) {
+        double fraction = 0;
+        if (progressData.getSongsToTry() > 0) {
+            fraction = (double) progressData.getSongsAttempted() / progressData.getSongsToTry();
+        }
+        if (progressData.getLyricsWanted() > 0) {
+            fraction = Math.max(fraction, (double) progressData.getLyricsFound() / progressData.getLyricsWanted());
+        }
+        return Math.min(1, fraction);
+    }
+
+    private static String stageTimings(AnalyzePlaylistProgressData progressData) {
+        final StringBuilder timings = new StringBuilder("Lyrics ").append(seconds(progressData.getLyricsMillis()));
+        if (progressData.getStage() != AnalyzePlaylistProgressData.Stage.LOOKING_UP_LYRICS) {
+            timings.append(", waiting for the analysis ").append(seconds(progressData.getWaitingMillis()));
+        }
+        if (progressData.getReceivingMillis() > 0) {
+            timings.append(", receiving it ").append(seconds(progressData.getReceivingMillis()));
+        }
+        return timings.toString();
+    }
+
+    private static String seconds(long millis) {
+        return String.format("%.1f s", millis / 1000.0);
+    }
+
     /**
      * Called by the Interactor on failure.
      * Updates the ViewModel with the error message and stops loading.
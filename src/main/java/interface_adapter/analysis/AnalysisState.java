@@ -10,16 +10,30 @@ public class AnalysisState {
     private String playlistName = "";
     private JsonArray songs = null;
     private boolean isLoading = false;
+    private boolean provisional = false;
+    private boolean streaming = false;
     private SentimentResult result = null;
     private String errorMessage = null;
+    private long lyricsBytesSaved = 0;
+    private long estimatedTokensSaved = 0;
+    private int progressPercent = -1;
+    private String progressText = null;
+    private String stageTimings = null;
 
     // Constructor (Copy constructor for thread-safe state management)
     public AnalysisState(AnalysisState copy) {
         playlistName = copy.playlistName;
         songs = copy.songs;
         isLoading = copy.isLoading;
+        provisional = copy.provisional;
+        streaming = copy.streaming;
         result = copy.result;
         errorMessage = copy.errorMessage;
+        lyricsBytesSaved = copy.lyricsBytesSaved;
+        estimatedTokensSaved = copy.estimatedTokensSaved;
+        progressPercent = copy.progressPercent;
+        progressText = copy.progressText;
+        stageTimings = copy.stageTimings;
     }
 
     // Default constructor
@@ -38,6 +52,20 @@ public class AnalysisState {
         return isLoading;
     }
 
+    /**
+     * @return true while the shown result is an early estimate and the full analysis is still running
+     */
+    public boolean isProvisional() {
+        return provisional;
+    }
+
+    /**
+     * @return true while the shown result is the part of the full analysis received so far
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     public SentimentResult getResult() {
         return result;
     }
@@ -46,6 +74,32 @@ public class AnalysisState {
         return errorMessage;
     }
 
+    public long getLyricsBytesSaved() {
+        return lyricsBytesSaved;
+    }
+
+    public long getEstimatedTokensSaved() {
+        return estimatedTokensSaved;
+    }
+
+    /**
+     * @return how far the running analysis has come, from 0 to 100, or -1 if not known yet
+     */
+    public int getProgressPercent() {
+        return progressPercent;
+    }
+
+    public String getProgressText() {
+        return progressText;
+    }
+
+    /**
+     * @return how long each stage of the analysis took, or null if not known
+     */
+    public String getStageTimings() {
+        return stageTimings;
+    }
+
     // Setters
     public void setPlaylistName(String playlistName) {
         this.playlistName = playlistName;
@@ -59,13 +113,37 @@ public class AnalysisState {
         isLoading = loading;
     }
 
+    public void setProvisional(boolean provisional) {
+        this.provisional = provisional;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     public void setResult(SentimentResult result) {
         this.result = result;
         this.errorMessage = null; // Clear error on success
     }
 
+    public void setCompactionSavings(long lyricsBytesSaved, long estimatedTokensSaved) {
+        this.lyricsBytesSaved = lyricsBytesSaved;
+        this.estimatedTokensSaved = estimatedTokensSaved;
+    }
+
+    public void setProgress(int progressPercent, String progressText) {
+        this.progressPercent = progressPercent;
+        this.progressText = progressText;
+    }
+
+    public void setStageTimings(String stageTimings) {
+        this.stageTimings = stageTimings;
+    }
+
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
         this.result = null; // Clear result on error
+        this.provisional = false;
+        this.streaming = false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package interface_adapter.analyze_library;
+
+import entity.Playlist;
+import use_case.analyze_library.AnalyzeLibraryInputBoundary;
+import use_case.analyze_library.AnalyzeLibraryInputData;
+
+import java.util.List;
+
+/**
+ * The Controller for the Analyze Library use case.
+ */
+public class AnalyzeLibraryController {
+    private final AnalyzeLibraryInputBoundary analyzeLibraryInteractor;
+
+    public AnalyzeLibraryController(AnalyzeLibraryInputBoundary analyzeLibraryInteractor) {
+        this.analyzeLibraryInteractor = analyzeLibraryInteractor;
+    }
+
+    /**
+     * Execute method. Blocks until the job is done, so call it from a background thread.
+     * @param playlists every playlist to analyze
+     */
+    public void execute(List<Playlist> playlists) {
+        analyzeLibraryInteractor.execute(new AnalyzeLibraryInputData(playlists));
+    }
+}
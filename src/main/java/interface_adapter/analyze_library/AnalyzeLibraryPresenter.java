@@ -0,0 +1,76 @@
+package interface_adapter.analyze_library;
+
+import use_case.analyze_library.AnalyzeLibraryOutputBoundary;
+import use_case.analyze_library.AnalyzeLibraryOutputData;
+import use_case.analyze_library.AnalyzeLibraryPlaylistOutputData;
+import use_case.analyze_library.AnalyzeLibraryProgressData;
+
+import javax.swing.*;
+
+/**
+ * The Presenter for the Analyze Library use case. It updates the view model on the Event
+ * Dispatch Thread, adding each playlist's result as it arrives.
+ */
+public class AnalyzeLibraryPresenter implements AnalyzeLibraryOutputBoundary {
+
+    private final AnalyzeLibraryViewModel analyzeLibraryViewModel;
+
+    public AnalyzeLibraryPresenter(AnalyzeLibraryViewModel analyzeLibraryViewModel) {
+        this.analyzeLibraryViewModel = analyzeLibraryViewModel;
+    }
+
+    @Override
+    public void prepareProgressView(AnalyzeLibraryProgressData progressData) {
+        SwingUtilities.invokeLater(() -> {
+            AnalyzeLibraryState state = analyzeLibraryViewModel.getState();
+            state.setProgress(progressData.getSongsResolved(), progressData.getDistinctSongs(),
+                    progressData.getPlaylistsDone());
+            analyzeLibraryViewModel.firePropertyChanged();
+        });
+    }
+
+    @Override
+    public void preparePlaylistView(AnalyzeLibraryPlaylistOutputData outputData) {
+        SwingUtilities.invokeLater(() -> {
+            AnalyzeLibraryState state = analyzeLibraryViewModel.getState();
+            state.addRow(new AnalyzeLibraryState.PlaylistRow(outputData.getPlaylistName(),
+                    outputData.getOverallCategory(), outputData.getSummaryText(), outputData.isEstimate()));
+            analyzeLibraryViewModel.firePropertyChanged();
+        });
+    }
+
+    @Override
+    public void preparePlaylistFailView(String playlistName, String error) {
+        SwingUtilities.invokeLater(() -> {
+            AnalyzeLibraryState state = analyzeLibraryViewModel.getState();
+            state.addRow(new AnalyzeLibraryState.PlaylistRow(playlistName, null, error, false));
+            analyzeLibraryViewModel.firePropertyChanged();
+        });
+    }
+
+    @Override
+    public void prepareSuccessView(AnalyzeLibraryOutputData outputData) {
+        SwingUtilities.invokeLater(() -> {
+            AnalyzeLibraryState state = analyzeLibraryViewModel.getState();
+            String summary = "Analyzed " + outputData.getPlaylistsAnalyzed() + " playlists";
+            if (outputData.getPlaylistsFailed() > 0) {
+                summary += " (" + outputData.getPlaylistsFailed() + " could not be analyzed)";
+            }
+            summary += " from " + outputData.getDistinctSongs() + " distinct songs";
+            if (outputData.getSharedSongs() > 0) {
+                summary += "; " + outputData.getSharedSongs() + " shared songs were analyzed only once";
+            }
+            state.setSummary(summary + ".");
+            analyzeLibraryViewModel.firePropertyChanged();
+        });
+    }
+
+    @Override
+    public void prepareFailView(String error) {
+        SwingUtilities.invokeLater(() -> {
+            AnalyzeLibraryState state = analyzeLibraryViewModel.getState();
+            state.setErrorMessage(error);
+            analyzeLibraryViewModel.firePropertyChanged();
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package interface_adapter.analyze_library;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The mutable state data structure for the Library Analysis View.
+ */
+public class AnalyzeLibraryState {
+    private boolean running = false;
+    private int songsResolved = 0;
+    private int distinctSongs = 0;
+    private int playlistsDone = 0;
+    private int playlistCount = 0;
+    private final List<PlaylistRow> rows = new ArrayList<>();
+    private String summary = null;
+    private String errorMessage = null;
+
+    /**
+     * One playlist's line in the results.
+     * @param playlistName the display name of the playlist
+     * @param sentimentWord the playlist's sentiment word, or null if it could not be analyzed
+     * @param detail the explanation, or why the playlist could not be analyzed
+     * @param estimate true if the result is a quick local estimate
+     */
+    public record PlaylistRow(String playlistName, String sentimentWord, String detail, boolean estimate) {
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getSongsResolved() {
+        return songsResolved;
+    }
+
+    public int getDistinctSongs() {
+        return distinctSongs;
+    }
+
+    public int getPlaylistsDone() {
+        return playlistsDone;
+    }
+
+    public int getPlaylistCount() {
+        return playlistCount;
+    }
+
+    public List<PlaylistRow> getRows() {
+        return rows;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Clears the state for a new job.
+     * @param playlistCount the number of playlists in the job
+     */
+    public void start(int playlistCount) {
+        this.running = true;
+        this.songsResolved = 0;
+        this.distinctSongs = 0;
+        this.playlistsDone = 0;
+        this.playlistCount = playlistCount;
+        this.rows.clear();
+        this.summary = null;
+        this.errorMessage = null;
+    }
+
+    public void setProgress(int songsResolved, int distinctSongs, int playlistsDone) {
+        this.songsResolved = songsResolved;
+        this.distinctSongs = distinctSongs;
+        this.playlistsDone = playlistsDone;
+    }
+
+    public void addRow(PlaylistRow row) {
+        rows.add(row);
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+        this.running = false;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.running = false;
+    }
+}
@@ -0,0 +1,31 @@
+package interface_adapter.analyze_library;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+
+/**
+ * The Library Analysis View Model holds the state and notifies listeners (the view) of changes.
+ */
+public class AnalyzeLibraryViewModel {
+    public static final String TITLE_LABEL = "Library Sentiment Analysis";
+
+    private final AnalyzeLibraryState state = new AnalyzeLibraryState();
+    private final PropertyChangeSupport support = new PropertyChangeSupport(this);
+
+    public AnalyzeLibraryState getState() {
+        return state;
+    }
+
+    // This method is called by the Presenter
+    public void firePropertyChanged() {
+        support.firePropertyChange("state", null, this.state);
+    }
+
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        support.addPropertyChangeListener(listener);
+    }
+
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        support.removePropertyChangeListener(listener);
+    }
+}
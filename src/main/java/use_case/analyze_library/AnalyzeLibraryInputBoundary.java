@@ -0,0 +1,12 @@
+package use_case.analyze_library;
+
+/**
+ * The Input Boundary (Controller Interface) used by the Controller.
+ */
+public interface AnalyzeLibraryInputBoundary {
+    /**
+     * Execute method. Returns once every playlist has been presented, or at once when interrupted.
+     * @param analyzeLibraryInputData AnalyzeLibraryInputData
+     */
+    void execute(AnalyzeLibraryInputData analyzeLibraryInputData);
+}
@@ -0,0 +1,20 @@
+package use_case.analyze_library;
+
+import entity.Playlist;
+
+import java.util.List;
+
+/**
+ * The Input Data for the Analyze Library use case: every playlist to analyze in one job.
+ */
+public class AnalyzeLibraryInputData {
+    private final List<Playlist> playlists;
+
+    public AnalyzeLibraryInputData(List<Playlist> playlists) {
+        this.playlists = List.copyOf(playlists);
+    }
+
+    public List<Playlist> getPlaylists() {
+        return playlists;
+    }
+}
@@ -0,0 +1,402 @@
+package use_case.analyze_library;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import entity.Playlist;
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+import entity.SongCanonicalizer;
+import use_case.analyze_playlist.AnalysisStatsDataAccessInterface;
+import use_case.analyze_playlist.LyricsCompactor;
+import use_case.analyze_playlist.SentimentAggregator;
+import use_case.analyze_playlist.SentimentDataAccessInterface;
+import use_case.analyze_playlist.SongSentimentDataAccessInterface;
+import use_case.analyze_playlist.SpotifyPlaylistDataAccessInterface;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Interactor for the 'Analyze Library' use case, which analyzes many playlists in one job.
+ *
+ * The songs of all playlists are collected into one set, keyed by their canonical artist and title,
+ * so a song in several playlists is looked up and analyzed once, even as "Song (feat. X)" in one
+ * and "Song - Remastered" in another. Songs whose sentiment is stored from earlier analyses need no
+ * lyrics at all. The lyrics of the others are looked up a few at a time, and as they arrive they
+ * are analyzed in batches, one sentiment request per batch, with at most `parallelism` lookups and
+ * requests running at once. Each playlist's result is aggregated from its songs and presented as
+ * soon as all of them are done, together with the progress of the whole job.
+ *
+ * Interrupting the calling thread stops the job: the lookups and requests still running are
+ * cancelled, and nothing more is presented. The pool threads are released by close.
+ */
+public class AnalyzeLibraryInteractor implements AnalyzeLibraryInputBoundary, AutoCloseable {
+    private final SentimentDataAccessInterface sentimentDataAccessObject;
+    private final SongSentimentDataAccessInterface songSentimentDataAccessObject;
+    private final SpotifyPlaylistDataAccessInterface spotifyPlaylistDataAccessObject;
+    private final AnalysisStatsDataAccessInterface analysisStatsDataAccessObject;
+    private final AnalyzeLibraryOutputBoundary analyzeLibraryPresenter;
+    private final SentimentAggregator sentimentAggregator;
+    private final LyricsCompactor lyricsCompactor = new LyricsCompactor();
+    private final int songsPerPlaylist;
+    private final int batchSize;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs the interactor with its dependencies.
+     *
+     * @param sentimentResultFactory          SentimentResultFactory for the aggregated results
+     * @param sentimentDataAccessObject       SentimentDataAccessInterface, called once per batch of songs
+     * @param songSentimentDataAccessObject   SongSentimentDataAccessInterface remembering each song's
+     *                                        sentiment, or null to analyze every song
+     * @param spotifyPlaylistDataAccessObject SpotifyPlaylistDataAccessInterface, called once per song
+     * @param analysisStatsDataAccessObject   AnalysisStatsDataAccessInterface, counting each analyzed playlist
+     * @param analyzeLibraryPresenter         AnalyzeLibraryOutputBoundary
+     * @param songsPerPlaylist                the most songs of one playlist the playlist's result is based on
+     * @param batchSize                       the most songs analyzed in one sentiment request
+     * @param parallelism                     the most lookups and requests running at once
+     * @throws IllegalArgumentException if songsPerPlaylist, batchSize or parallelism is less than 1
+     */
+    public AnalyzeLibraryInteractor(SentimentResultFactory sentimentResultFactory,
+                                    SentimentDataAccessInterface sentimentDataAccessObject,
+                                    SongSentimentDataAccessInterface songSentimentDataAccessObject,
+                                    SpotifyPlaylistDataAccessInterface spotifyPlaylistDataAccessObject,
+                                    AnalysisStatsDataAccessInterface analysisStatsDataAccessObject,
+                                    AnalyzeLibraryOutputBoundary analyzeLibraryPresenter,
+                                    int songsPerPlaylist, int batchSize, int parallelism) {
+        if (songsPerPlaylist < 1) {
+            throw new IllegalArgumentException("songsPerPlaylist must be at least 1, got " + songsPerPlaylist);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1, got " + batchSize);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        this.sentimentDataAccessObject = sentimentDataAccessObject;
+        this.songSentimentDataAccessObject = songSentimentDataAccessObject;
+        this.spotifyPlaylistDataAccessObject = spotifyPlaylistDataAccessObject;
+        this.analysisStatsDataAccessObject = analysisStatsDataAccessObject;
+        this.analyzeLibraryPresenter = analyzeLibraryPresenter;
+        this.sentimentAggregator = new SentimentAggregator(sentimentResultFactory);
+        this.songsPerPlaylist = songsPerPlaylist;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "library-analysis-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void execute(AnalyzeLibraryInputData inputData) {
+        if (inputData.getPlaylists().isEmpty()) {
+            analyzeLibraryPresenter.prepareFailView("There are no playlists to analyze.");
+            return;
+        }
+        new Job(inputData.getPlaylists()).run();
+    }
+
+    /**
+     * Stops the threads this interactor looks up and analyzes songs on. A job still running is
+     * cancelled, and execute may not be called afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A distinct song and the playlists it is in.
+     */
+    private static final class Song {
+        private final JsonObject song;
+        private final String title;
+        private final List<Integer> playlists = new ArrayList<>();
+        private SentimentResult result;
+        private String failure;
+
+        Song(JsonObject song) {
+            this.song = song;
+            this.title = song.get("title").getAsString();
+        }
+
+        String artist() {
+            return song.get("artist").getAsString();
+        }
+    }
+
+    /**
+     * The state of one execute call. Its fields are only touched by the calling thread; the pool
+     * threads do the blocking work and hand back a step that the calling thread applies.
+     */
+    private final class Job {
+        private final List<Playlist> playlists;
+        private final List<List<Song>> playlistSongs = new ArrayList<>();
+        private final Map<String, Song> songs = new LinkedHashMap<>();
+        private final int[] unresolvedSongs;
+        private final Deque<Song> toLookUp = new ArrayDeque<>();
+        private final List<Song> batchSongs = new ArrayList<>();
+        private final List<String> batchLyrics = new ArrayList<>();
+        private final CompletionService<Runnable> completions = new ExecutorCompletionService<>(executor);
+        private final List<Future<Runnable>> launched = new ArrayList<>();
+        private int running;
+        private int lookupsRunning;
+        private int lyricsToLookUp;
+        private int lyricsLookedUp;
+        private int songsResolved;
+        private int songsAnalyzed;
+        private int songSlots;
+        private int playlistsAnalyzed;
+        private int playlistsFailed;
+
+        Job(List<Playlist> playlists) {
+            this.playlists = playlists;
+            this.unresolvedSongs = new int[playlists.size()];
+        }
+
+        void run() {
+            collectSongs();
+            for (int i = 0; i < playlists.size(); i++) {
+                if (playlistSongs.get(i).isEmpty()) {
+                    presentPlaylist(i);
+                }
+            }
+            for (Song song : songs.values()) {
+                final SentimentResult stored = songSentimentDataAccessObject == null ? null
+                        : songSentimentDataAccessObject.getSongSentiment(song.artist(), song.title);
+                if (stored != null) {
+                    resolve(song, stored, null);
+                }
+                else {
+                    toLookUp.add(song);
+                    lyricsToLookUp++;
+                }
+            }
+            launchLookups();
+            presentProgress();
+
+            try {
+                while (running > 0) {
+                    final Runnable step = completions.take().get();
+                    running--;
+                    step.run();
+                    launchLookups();
+                    if (lyricsLookedUp == lyricsToLookUp && !batchSongs.isEmpty()) {
+                        launchBatch();
+                    }
+                    presentProgress();
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<Runnable> task : launched) {
+                    task.cancel(true);
+                }
+                return;
+            }
+            catch (ExecutionException e) {
+                // the steps catch every exception of the data access objects themselves
+                throw new IllegalStateException(e.getCause());
+            }
+
+            analyzeLibraryPresenter.prepareSuccessView(new AnalyzeLibraryOutputData(playlistsAnalyzed,
+                    playlistsFailed, songs.size(), songSlots - songs.size(), songsAnalyzed));
+        }
+
+        /**
+         * Collects the first songsPerPlaylist distinct songs of every playlist into one set.
+         */
+        private void collectSongs() {
+            for (int i = 0; i < playlists.size(); i++) {
+                final JsonArray playlistJson = playlists.get(i).getSongs();
+                final Set<Song> inPlaylist = new LinkedHashSet<>();
+                for (int j = 0; playlistJson != null && j < playlistJson.size()
+                        && inPlaylist.size() < songsPerPlaylist; j++) {
+                    final JsonObject json = playlistJson.get(j).getAsJsonObject();
+                    final String key = SongCanonicalizer.key(json.get("artist").getAsString(),
+                            json.get("title").getAsString());
+                    final Song song = songs.computeIfAbsent(key, ignored -> new Song(json));
+                    if (inPlaylist.add(song)) {
+                        song.playlists.add(i);
+                    }
+                }
+                playlistSongs.add(new ArrayList<>(inPlaylist));
+                unresolvedSongs[i] = inPlaylist.size();
+                songSlots += inPlaylist.size();
+            }
+        }
+
+        /**
+         * Starts lyrics lookups until parallelism of them are running. Fewer lookups than threads
+         * would leave threads idle; more would queue the batches behind every last lookup.
+         */
+        private void launchLookups() {
+            while (lookupsRunning < parallelism && !toLookUp.isEmpty()) {
+                final Song song = toLookUp.poll();
+                lookupsRunning++;
+                launch(() -> lookUpLyrics(song));
+            }
+        }
+
+        private void launchBatch() {
+            final List<Song> batch = List.copyOf(batchSongs);
+            final List<String> lyrics = List.copyOf(batchLyrics);
+            batchSongs.clear();
+            batchLyrics.clear();
+            launch(() -> analyzeBatch(batch, lyrics));
+        }
+
+        private void launch(Callable<Runnable> task) {
+            launched.add(completions.submit(task));
+            running++;
+        }
+
+        /**
+         * Looks up one song's lyrics on a pool thread.
+         * @return the step that records the outcome
+         */
+        private Runnable lookUpLyrics(Song song) {
+            final JsonArray single = new JsonArray();
+            single.add(song.song);
+            final String lyrics;
+            try {
+                final JsonArray found = spotifyPlaylistDataAccessObject.getLyrics(single);
+                lyricsCompactor.compactSongs(found);
+                // nothing but markers or boilerplate is no lyrics either
+                if (found.size() == 0) {
+                    return () -> lookedUp(song, null, "No lyrics found");
+                }
+                lyrics = spotifyPlaylistDataAccessObject.getStringLyrics(found);
+            }
+            catch (IOException | RuntimeException e) {
+                return () -> lookedUp(song, null, "Failed to fetch lyrics: " + e.getMessage());
+            }
+            return () -> lookedUp(song, lyrics, null);
+        }
+
+        private void lookedUp(Song song, String lyrics, String failure) {
+            lookupsRunning--;
+            lyricsLookedUp++;
+            if (lyrics == null) {
+                resolve(song, null, failure);
+                return;
+            }
+            batchSongs.add(song);
+            batchLyrics.add(lyrics);
+            if (batchSongs.size() >= batchSize) {
+                launchBatch();
+            }
+        }
+
+        /**
+         * Analyzes one batch of songs on a pool thread.
+         * @return the step that records the results
+         */
+        private Runnable analyzeBatch(List<Song> batch, List<String> lyrics) {
+            final List<SentimentResult> results;
+            try {
+                results = sentimentDataAccessObject.analyzeSentimentBatch(lyrics);
+            }
+            catch (IOException e) {
+                return () -> failBatch(batch,
+                        "Failed to connect to the sentiment analysis service: " + e.getMessage());
+            }
+            catch (RuntimeException e) {
+                return () -> failBatch(batch, "An unexpected error occurred during analysis: " + e.getMessage());
+            }
+            return () -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    final Song song = batch.get(i);
+                    final SentimentResult result = results.get(i);
+                    songsAnalyzed++;
+                    if (songSentimentDataAccessObject != null && !result.isEstimate()) {
+                        songSentimentDataAccessObject.saveSongSentiment(song.artist(), song.title, result);
+                    }
+                    resolve(song, result, null);
+                }
+                if (songSentimentDataAccessObject != null) {
+                    songSentimentDataAccessObject.flush();
+                }
+            };
+        }
+
+        private void failBatch(List<Song> batch, String failure) {
+            for (Song song : batch) {
+                resolve(song, null, failure);
+            }
+        }
+
+        /**
+         * Records a song's outcome and presents each of its playlists that has no songs left.
+         */
+        private void resolve(Song song, SentimentResult result, String failure) {
+            song.result = result;
+            song.failure = failure;
+            songsResolved++;
+            for (int playlist : song.playlists) {
+                if (--unresolvedSongs[playlist] == 0) {
+                    presentPlaylist(playlist);
+                }
+            }
+        }
+
+        private void presentPlaylist(int index) {
+            final Playlist playlist = playlists.get(index);
+            final List<String> titles = new ArrayList<>();
+            final List<SentimentResult> results = new ArrayList<>();
+            String failure = null;
+            for (Song song : playlistSongs.get(index)) {
+                if (song.result != null) {
+                    titles.add(song.title);
+                    results.add(song.result);
+                }
+                else if (failure == null) {
+                    failure = song.failure;
+                }
+            }
+
+            if (playlistSongs.get(index).isEmpty()) {
+                playlistsFailed++;
+                analyzeLibraryPresenter.preparePlaylistFailView(playlist.getPlaylistName(), "Playlist is empty");
+            }
+            else if (results.isEmpty()) {
+                playlistsFailed++;
+                analyzeLibraryPresenter.preparePlaylistFailView(playlist.getPlaylistName(),
+                        failure != null ? failure : "No lyrics found");
+            }
+            else {
+                final SentimentResult result = sentimentAggregator.aggregate(titles, results);
+                playlistsAnalyzed++;
+                analysisStatsDataAccessObject.incrementAnalyzedPlaylistsCount();
+                analyzeLibraryPresenter.preparePlaylistView(new AnalyzeLibraryPlaylistOutputData(
+                        playlist.getPlaylistId(), playlist.getPlaylistName(), result.getSentimentWord(),
+                        result.getSentimentExplanation(), results.size(), result.isEstimate()));
+            }
+        }
+
+        private void presentProgress() {
+            analyzeLibraryPresenter.prepareProgressView(new AnalyzeLibraryProgressData(songsResolved, songs.size(),
+                    lyricsLookedUp, lyricsToLookUp, playlistsAnalyzed + playlistsFailed, playlists.size()));
+        }
+    }
+}
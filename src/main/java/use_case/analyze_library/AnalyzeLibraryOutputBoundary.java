@@ -0,0 +1,40 @@
+package use_case.analyze_library;
+
+/**
+ * The Output Boundary (Presenter Interface) used by the Interactor.
+ * Progress and playlist results are presented while the job runs; prepareSuccessView or
+ * prepareFailView ends it.
+ */
+public interface AnalyzeLibraryOutputBoundary {
+
+    /**
+     * Shows how far the job has come. Called each time a song has been looked up or analyzed.
+     * @param progressData the counts so far
+     */
+    void prepareProgressView(AnalyzeLibraryProgressData progressData);
+
+    /**
+     * Shows the result of one playlist, as soon as all of its songs have been analyzed.
+     * @param outputData the playlist's result
+     */
+    void preparePlaylistView(AnalyzeLibraryPlaylistOutputData outputData);
+
+    /**
+     * Shows that one playlist could not be analyzed, e.g. because none of its lyrics were found.
+     * @param playlistName the display name of the playlist
+     * @param error why it could not be analyzed
+     */
+    void preparePlaylistFailView(String playlistName, String error);
+
+    /**
+     * Ends the job after every playlist has been presented.
+     * @param outputData the totals of the job
+     */
+    void prepareSuccessView(AnalyzeLibraryOutputData outputData);
+
+    /**
+     * Ends the job when it could not be run at all.
+     * @param error why it could not be run
+     */
+    void prepareFailView(String error);
+}
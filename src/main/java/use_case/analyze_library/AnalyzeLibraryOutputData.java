@@ -0,0 +1,49 @@
+package use_case.analyze_library;
+
+/**
+ * The totals of a finished Analyze Library job.
+ */
+public class AnalyzeLibraryOutputData {
+    private final int playlistsAnalyzed;
+    private final int playlistsFailed;
+    private final int distinctSongs;
+    private final int sharedSongs;
+    private final int songsAnalyzed;
+
+    /**
+     * Constructs the output data.
+     * @param playlistsAnalyzed the playlists that got a result
+     * @param playlistsFailed the playlists that could not be analyzed
+     * @param distinctSongs the distinct songs across all playlists
+     * @param sharedSongs the songs that were skipped because another playlist has them too
+     * @param songsAnalyzed the songs sent for sentiment analysis in this job
+     */
+    public AnalyzeLibraryOutputData(int playlistsAnalyzed, int playlistsFailed, int distinctSongs,
+                                    int sharedSongs, int songsAnalyzed) {
+        this.playlistsAnalyzed = playlistsAnalyzed;
+        this.playlistsFailed = playlistsFailed;
+        this.distinctSongs = distinctSongs;
+        this.sharedSongs = sharedSongs;
+        this.songsAnalyzed = songsAnalyzed;
+    }
+
+    public int getPlaylistsAnalyzed() {
+        return playlistsAnalyzed;
+    }
+
+    public int getPlaylistsFailed() {
+        return playlistsFailed;
+    }
+
+    public int getDistinctSongs() {
+        return distinctSongs;
+    }
+
+    public int getSharedSongs() {
+        return sharedSongs;
+    }
+
+    public int getSongsAnalyzed() {
+        return songsAnalyzed;
+    }
+}
@@ -0,0 +1,56 @@
+package use_case.analyze_library;
+
+/**
+ * The result of one playlist in an Analyze Library job.
+ */
+public class AnalyzeLibraryPlaylistOutputData {
+    private final String playlistId;
+    private final String playlistName;
+    private final String overallCategory;
+    private final String summaryText;
+    private final int songsAnalyzed;
+    private final boolean estimate;
+
+    /**
+     * Constructs the playlist's output data.
+     * @param playlistId the unique identifier of the playlist
+     * @param playlistName the display name of the playlist
+     * @param overallCategory the sentiment word aggregated from the playlist's songs
+     * @param summaryText the explanation aggregated from the playlist's songs
+     * @param songsAnalyzed the number of the playlist's songs the result is based on
+     * @param estimate true if any of those songs only has a quick local estimate
+     */
+    public AnalyzeLibraryPlaylistOutputData(String playlistId, String playlistName, String overallCategory,
+                                            String summaryText, int songsAnalyzed, boolean estimate) {
+        this.playlistId = playlistId;
+        this.playlistName = playlistName;
+        this.overallCategory = overallCategory;
+        this.summaryText = summaryText;
+        this.songsAnalyzed = songsAnalyzed;
+        this.estimate = estimate;
+    }
+
+    public String getPlaylistId() {
+        return playlistId;
+    }
+
+    public String getPlaylistName() {
+        return playlistName;
+    }
+
+    public String getOverallCategory() {
+        return overallCategory;
+    }
+
+    public String getSummaryText() {
+        return summaryText;
+    }
+
+    public int getSongsAnalyzed() {
+        return songsAnalyzed;
+    }
+
+    public boolean isEstimate() {
+        return estimate;
+    }
+}
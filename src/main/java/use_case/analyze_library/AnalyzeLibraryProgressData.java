@@ -0,0 +1,57 @@
+package use_case.analyze_library;
+
+/**
+ * How far an Analyze Library job has come. Every distinct song is resolved once: from the
+ * stored song sentiments, by analyzing its lyrics, or as having no result.
+ */
+public class AnalyzeLibraryProgressData {
+    private final int songsResolved;
+    private final int distinctSongs;
+    private final int lyricsLookedUp;
+    private final int lyricsToLookUp;
+    private final int playlistsDone;
+    private final int playlists;
+
+    /**
+     * Constructs the progress data.
+     * @param songsResolved the distinct songs whose outcome is known
+     * @param distinctSongs the distinct songs across all playlists
+     * @param lyricsLookedUp the lyrics lookups that have finished
+     * @param lyricsToLookUp the songs whose lyrics had to be looked up
+     * @param playlistsDone the playlists presented so far
+     * @param playlists the playlists in the job
+     */
+    public AnalyzeLibraryProgressData(int songsResolved, int distinctSongs, int lyricsLookedUp,
+                                      int lyricsToLookUp, int playlistsDone, int playlists) {
+        this.songsResolved = songsResolved;
+        this.distinctSongs = distinctSongs;
+        this.lyricsLookedUp = lyricsLookedUp;
+        this.lyricsToLookUp = lyricsToLookUp;
+        this.playlistsDone = playlistsDone;
+        this.playlists = playlists;
+    }
+
+    public int getSongsResolved() {
+        return songsResolved;
+    }
+
+    public int getDistinctSongs() {
+        return distinctSongs;
+    }
+
+    public int getLyricsLookedUp() {
+        return lyricsLookedUp;
+    }
+
+    public int getLyricsToLookUp() {
+        return lyricsToLookUp;
+    }
+
+    public int getPlaylistsDone() {
+        return playlistsDone;
+    }
+
+    public int getPlaylists() {
+        return playlists;
+    }
+}
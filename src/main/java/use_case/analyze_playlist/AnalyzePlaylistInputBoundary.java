@@ -1,5 +1,7 @@
 package use_case.analyze_playlist;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * The Input Boundary (Controller Interface) used by the Controller.
  */
@@ -10,4 +12,12 @@ public interface AnalyzePlaylistInputBoundary {
      * @param analyzePlaylistInputData AnalyzePlaylistInputData
      */
     void execute(AnalyzePlaylistInputData analyzePlaylistInputData);
+
+    /**
+     * Starts the use case on another thread and returns at once.
+     * @param analyzePlaylistInputData AnalyzePlaylistInputData
+     * @return a future completed once the outcome has been presented; cancelling it stops the
+     *         analysis and the requests it is waiting for, and nothing more is presented
+     */
+    CompletableFuture<Void> executeAsync(AnalyzePlaylistInputData analyzePlaylistInputData);
 }
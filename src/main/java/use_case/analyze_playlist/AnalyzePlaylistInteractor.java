@@ -1,25 +1,68 @@
 package use_case.analyze_playlist;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import entity.Playlist;
 import entity.PlaylistFactory;
 import entity.SentimentResult;
 import entity.SentimentResultFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 /**
  * The Interactor handles the core business logic for the 'Analyze Playlist' use case.
  * It takes input data, uses the Data Access Object (DAO) to get the sentiment,
  * and passes the result to the Presenter.
+ * Lyrics are compacted before analysis, so repeated choruses are not sent more than once.
+ * In per-song mode each song is analyzed on its own and remembered, and the playlist's result
+ * is aggregated from its songs, so songs shared with earlier playlists are not analyzed again.
+ * With a provisional engine, a fast local estimate is presented first and then replaced by the
+ * full analysis. While a whole-playlist analysis is generated, the part received so far is
+ * presented too.
+ * An analysis of a playlist that is already being analyzed with the same songs is not started
+ * again; the second caller joins the first one. It is presented the latest progress, estimate and
+ * partial result at once, then everything the running analysis presents, up to the same outcome.
+ * Analyses are matched by a hash of their songs' artists and titles, not by the song lists themselves.
+ * An analysis started with executeAsync can be cancelled: its thread is interrupted, which stops
+ * the requests it is waiting for, and nothing more is presented or counted.
+ * While an analysis runs, its progress through the lyrics lookup, the prompt and the response
+ * is presented at most once every PROGRESS_INTERVAL_MILLIS, however often it changes.
+ * The threads it starts for this are released by close.
  */
-public class AnalyzePlaylistInteractor implements AnalyzePlaylistInputBoundary {
+public class AnalyzePlaylistInteractor implements AnalyzePlaylistInputBoundary, AutoCloseable {
+    /**
+     * How often the progress of a running analysis is presented.
+     */
+    public static final long PROGRESS_INTERVAL_MILLIS = 100;
+
     private final SentimentDataAccessInterface sentimentDataAccessObject;
     private final AnalyzePlaylistOutputBoundary analyzePlaylistPresenter;
     private final PlaylistFactory playlistFactory;
     private final SentimentResultFactory sentimentResultFactory;
     private final SpotifyPlaylistDataAccessInterface spotifyPlaylistDataAccessObject;
     private final AnalysisStatsDataAccessInterface analysisStatsDataAccessObject;
+    private final SongSentimentDataAccessInterface songSentimentDataAccessObject;
+    private final SentimentDataAccessInterface provisionalSentimentDataAccessObject;
+    private final SentimentAggregator sentimentAggregator;
+    private final LyricsCompactor lyricsCompactor = new LyricsCompactor();
+    private final Map<AnalysisKey, SharedAnalysis> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor progressScheduler;
 
     /**
      * Constructs the interactor with its dependencies.
@@ -37,6 +80,56 @@ public class AnalyzePlaylistInteractor implements AnalyzePlaylistInputBoundary {
                                      AnalyzePlaylistOutputBoundary analyzePlaylistPresenter,
                                      SpotifyPlaylistDataAccessInterface spotifyPlaylistDataAccessObject,
                                      AnalysisStatsDataAccessInterface analysisStatsDataAccessObject) {
+        this(playlistFactory, sentimentResultFactory, sentimentDataAccessObject, analyzePlaylistPresenter,
+                spotifyPlaylistDataAccessObject, analysisStatsDataAccessObject, null);
+    }
+
+    /**
+     * Constructs the interactor in per-song mode.
+     *
+     * @param analyzePlaylistPresenter        AnalyzePlaylistOutputBoundary
+     * @param playlistFactory                 PlaylistFactory
+     * @param sentimentDataAccessObject       SentimentDataAccessInterface, called once per song not yet analyzed
+     * @param sentimentResultFactory          SentimentResultFactory
+     * @param spotifyPlaylistDataAccessObject SpotifyPlaylistDataAccessInterface
+     * @param analysisStatsDataAccessObject   AnalysisStatsDataAccessObject
+     * @param songSentimentDataAccessObject   SongSentimentDataAccessInterface remembering each song's
+     *                                        sentiment, or null to analyze the playlist's lyrics as a whole
+     */
+    public AnalyzePlaylistInteractor(PlaylistFactory playlistFactory,
+                                     SentimentResultFactory sentimentResultFactory,
+                                     SentimentDataAccessInterface sentimentDataAccessObject,
+                                     AnalyzePlaylistOutputBoundary analyzePlaylistPresenter,
+                                     SpotifyPlaylistDataAccessInterface spotifyPlaylistDataAccessObject,
+                                     AnalysisStatsDataAccessInterface analysisStatsDataAccessObject,
+                                     SongSentimentDataAccessInterface songSentimentDataAccessObject) {
+        this(playlistFactory, sentimentResultFactory, sentimentDataAccessObject, analyzePlaylistPresenter,
+                spotifyPlaylistDataAccessObject, analysisStatsDataAccessObject, songSentimentDataAccessObject, null);
+    }
+
+    /**
+     * Constructs the interactor with a provisional engine whose estimate is shown while the
+     * full analysis runs.
+     *
+     * @param analyzePlaylistPresenter             AnalyzePlaylistOutputBoundary
+     * @param playlistFactory                      PlaylistFactory
+     * @param sentimentDataAccessObject            SentimentDataAccessInterface giving the final result
+     * @param sentimentResultFactory               SentimentResultFactory
+     * @param spotifyPlaylistDataAccessObject      SpotifyPlaylistDataAccessInterface
+     * @param analysisStatsDataAccessObject        AnalysisStatsDataAccessObject
+     * @param songSentimentDataAccessObject        SongSentimentDataAccessInterface, or null to analyze
+     *                                             the playlist's lyrics as a whole
+     * @param provisionalSentimentDataAccessObject a fast SentimentDataAccessInterface for the first
+     *                                             estimate, or null to show only the final result
+     */
+    public AnalyzePlaylistInteractor(PlaylistFactory playlistFactory,
+                                     SentimentResultFactory sentimentResultFactory,
+                                     SentimentDataAccessInterface sentimentDataAccessObject,
+                                     AnalyzePlaylistOutputBoundary analyzePlaylistPresenter,
+                                     SpotifyPlaylistDataAccessInterface spotifyPlaylistDataAccessObject,
+                                     AnalysisStatsDataAccessInterface analysisStatsDataAccessObject,
+                                     SongSentimentDataAccessInterface songSentimentDataAccessObject,
+                                     SentimentDataAccessInterface provisionalSentimentDataAccessObject) {
 
         this.sentimentDataAccessObject = sentimentDataAccessObject;
         this.analyzePlaylistPresenter = analyzePlaylistPresenter;
@@ -44,51 +137,516 @@ public class AnalyzePlaylistInteractor implements AnalyzePlaylistInputBoundary {
         this.sentimentResultFactory = sentimentResultFactory;
         this.spotifyPlaylistDataAccessObject = spotifyPlaylistDataAccessObject;
         this.analysisStatsDataAccessObject = analysisStatsDataAccessObject;
+        this.songSentimentDataAccessObject = songSentimentDataAccessObject;
+        this.provisionalSentimentDataAccessObject = provisionalSentimentDataAccessObject;
+        this.sentimentAggregator = new SentimentAggregator(sentimentResultFactory);
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "playlist-analysis-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.progressScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "analysis-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // no thread is kept while nothing is being analyzed
+        this.progressScheduler.setKeepAliveTime(1, TimeUnit.SECONDS);
+        this.progressScheduler.allowCoreThreadTimeOut(true);
+        this.progressScheduler.setRemoveOnCancelPolicy(true);
     }
 
     @Override
     public void execute(AnalyzePlaylistInputData inputData) {
+        run(inputData, analyzePlaylistPresenter, () -> false);
+    }
+
+    /**
+     * Runs the analysis on a thread of its own. Cancelling the returned future interrupts that
+     * thread: the lyrics lookups and the sentiment request in flight are cancelled, and the
+     * analysis is neither presented nor counted.
+     */
+    @Override
+    public CompletableFuture<Void> executeAsync(AnalyzePlaylistInputData inputData) {
+        final AnalysisHandle handle = new AnalysisHandle();
+        final AnalyzePlaylistOutputBoundary presenter = new UnlessCancelledPresenter(analyzePlaylistPresenter, handle);
+        executor.execute(() -> handle.run(() -> run(inputData, presenter, handle::isCancelled)));
+        return handle;
+    }
+
+    /**
+     * Stops the threads this interactor runs analyses and progress reports on. Analyses started
+     * with executeAsync that are still running are interrupted, and executeAsync may not be
+     * called afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        progressScheduler.shutdownNow();
+    }
+
+    /**
+     * Runs the analysis, or joins the same analysis already running until it ends.
+     * If that analysis was cancelled before presenting an outcome, this one runs after all.
+     */
+    private void run(AnalyzePlaylistInputData inputData, AnalyzePlaylistOutputBoundary presenter,
+                     BooleanSupplier cancelled) {
+        final JsonArray songs = inputData.getSongs();
+        final AnalysisKey key = new AnalysisKey(inputData.getPlaylistId(), songsHash(songs));
+        while (true) {
+            final SharedAnalysis started = new SharedAnalysis(presenter);
+            final SharedAnalysis running = inFlight.putIfAbsent(key, started);
+            if (running == null) {
+                try {
+                    analyze(inputData, started, cancelled);
+                }
+                finally {
+                    inFlight.remove(key, started);
+                    started.end();
+                }
+                return;
+            }
+
+            if (!running.join(presenter)) {
+                // it ended without an outcome and is no longer in flight
+                continue;
+            }
+            try {
+                running.awaitEnd();
+            }
+            catch (InterruptedException e) {
+                running.leave(presenter);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (running.isFinished()) {
+                return;
+            }
+            running.leave(presenter);
+        }
+    }
+
+    /**
+     * Runs one analysis, presenting its outcome to the given presenter.
+     */
+    private void analyze(AnalyzePlaylistInputData inputData, AnalyzePlaylistOutputBoundary presenter,
+                         BooleanSupplier cancelled) {
         final Playlist playlist = playlistFactory.create(
                 inputData.getPlaylistId(),
                 inputData.getPlaylistName(),
                 inputData.getSongs());
 
         if (playlist.getSongs().size() == 0) {
-            analyzePlaylistPresenter.prepareFailView("Selected playlist is empty");
-        } else {
-            JsonArray songInfo = spotifyPlaylistDataAccessObject.getLyrics(playlist.getSongs());
+            presenter.prepareFailView("Selected playlist is empty");
+            return;
+        }
 
-            if (songInfo.size() == 0) {
-                analyzePlaylistPresenter.prepareFailView("No lyrics found");
-            } else {    // analyze lyrics
-                analysisStatsDataAccessObject.incrementAnalyzedPlaylistsCount();
+        final ProgressReporter progress = new ProgressReporter(presenter, progressScheduler, PROGRESS_INTERVAL_MILLIS);
+        try {
+            analyze(playlist, presenter, cancelled, progress);
+        }
+        finally {
+            progress.finish();
+        }
+    }
 
-                final String lyrics = spotifyPlaylistDataAccessObject.getStringLyrics(songInfo);
+    /**
+     * Analyzes a playlist with songs, reporting its progress. The final progress is presented
+     * just before the outcome.
+     */
+    private void analyze(Playlist playlist, AnalyzePlaylistOutputBoundary presenter, BooleanSupplier cancelled,
+                         ProgressReporter progress) {
+        final JsonArray songInfo;
+        try {
+            songInfo = spotifyPlaylistDataAccessObject.getLyrics(playlist.getSongs(), progress);
+        }
+        catch (IOException e) {
+            if (!cancelled.getAsBoolean()) {
+                progress.finish();
+                presenter.prepareFailView("Failed to fetch lyrics: " + e.getMessage());
+            }
+            return;
+        }
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+        progress.lyricsFound(songInfo);
+        // songs left with nothing but markers or boilerplate are dropped here
+        final long bytesSaved = lyricsCompactor.compactSongs(songInfo);
+        final long tokensSaved = LyricsCompactor.estimateTokens(bytesSaved);
 
-                try {
-                    final SentimentResult result = sentimentDataAccessObject.analyzeSentiment(lyrics);
+        if (songInfo.size() == 0) {
+            progress.finish();
+            presenter.prepareFailView("No lyrics found");
+        } else {    // analyze lyrics
+
+            SentimentResult result = null;
+            String error = null;
+            try {
+                if (songSentimentDataAccessObject == null) {
+                    final String lyrics = spotifyPlaylistDataAccessObject.getStringLyrics(songInfo);
+                    presentProvisionalResult(presenter, lyrics, bytesSaved, tokensSaved);
+                    progress.promptSent();
+                    result = sentimentDataAccessObject.analyzeSentiment(lyrics,
+                            partialResultListener(presenter, progress, bytesSaved, tokensSaved));
+                    progress.responseReceived();
+                }
+                else {
+                    if (provisionalSentimentDataAccessObject != null) {
+                        presentProvisionalResult(presenter,
+                                spotifyPlaylistDataAccessObject.getStringLyrics(songInfo),
+                                bytesSaved, tokensSaved);
+                    }
+                    result = analyzeSongBySong(songInfo, progress);
+                }
+            }
+            catch (IOException e) {
+                // Handle API or network errors
+                error = "Failed to connect to the sentiment analysis service: " + e.getMessage();
+            }
+            catch (Exception e) {
+                // Catch any unexpected runtime errors
+                error = "An unexpected error occurred during analysis: " + e.getMessage();
+            }
+
+            // a cancelled analysis was dismissed, so it is neither presented nor counted
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            analysisStatsDataAccessObject.incrementAnalyzedPlaylistsCount();
+            progress.finish();
+            if (error != null) {
+                presenter.prepareFailView(error);
+            }
+            else {
+                presenter.prepareSuccessView(new AnalyzePlaylistOutputData(
+                        result.getSentimentWord(),
+                        result.getSentimentExplanation(),
+                        bytesSaved,
+                        tokensSaved,
+                        result.isEstimate()
+                ));
+            }
+        }
+    }
 
-                    final AnalyzePlaylistOutputData outputData = new AnalyzePlaylistOutputData(
-                            result.getSentimentWord(),
-                            result.getSentimentExplanation()
-                    );
+    /**
+     * Presents the provisional engine's estimate, if there is a provisional engine.
+     * A failing estimate is skipped; the full analysis still follows.
+     */
+    private void presentProvisionalResult(AnalyzePlaylistOutputBoundary presenter, String lyrics,
+                                          long bytesSaved, long tokensSaved) {
+        if (provisionalSentimentDataAccessObject == null) {
+            return;
+        }
+        try {
+            final SentimentResult estimate = provisionalSentimentDataAccessObject.analyzeSentiment(lyrics);
+            presenter.prepareProvisionalView(new AnalyzePlaylistOutputData(
+                    estimate.getSentimentWord(), estimate.getSentimentExplanation(),
+                    bytesSaved, tokensSaved, true));
+        }
+        catch (IOException e) {
+            // nothing to show early; wait for the full analysis
+        }
+    }
+
+    /**
+     * @return a listener presenting the result being generated
+     */
+    private SentimentStreamListener partialResultListener(AnalyzePlaylistOutputBoundary presenter,
+                                                          ProgressReporter progress,
+                                                          long bytesSaved, long tokensSaved) {
+        return (sentimentWord, explanationSoFar) -> {
+            progress.responseStarted();
+            presenter.preparePartialView(new AnalyzePlaylistOutputData(
+                    sentimentWord, explanationSoFar, bytesSaved, tokensSaved, false));
+        };
+    }
+
+    /**
+     * Analyzes every song that has not been analyzed before, each on its own but together in
+     * one batch, and aggregates the results of all songs into the playlist's result.
+     * The batch is not streamed: what it generates is one song's result at a time, not the playlist's.
+     */
+    private SentimentResult analyzeSongBySong(JsonArray songInfo, ProgressReporter progress) throws IOException {
+        final List<String> titles = new ArrayList<>();
+        final List<SentimentResult> results = new ArrayList<>();
+        final List<Integer> newSongs = new ArrayList<>();
+        final List<String> newLyrics = new ArrayList<>();
 
-                    analyzePlaylistPresenter.prepareSuccessView(outputData);
-                    // Removed increment call from here
+        for (int i = 0; i < songInfo.size(); i++) {
+            final JsonObject song = songInfo.get(i).getAsJsonObject();
+            final String artist = song.get("artist").getAsString();
+            final String title = song.get("title").getAsString();
 
+            final SentimentResult result = songSentimentDataAccessObject.getSongSentiment(artist, title);
+            if (result == null) {
+                final JsonArray single = new JsonArray();
+                single.add(song);
+                newSongs.add(i);
+                newLyrics.add(spotifyPlaylistDataAccessObject.getStringLyrics(single));
+            }
+            titles.add(title);
+            results.add(result);
+        }
+
+        if (!newLyrics.isEmpty()) {
+            progress.promptSent();
+            final List<SentimentResult> analyzed = sentimentDataAccessObject.analyzeSentimentBatch(newLyrics);
+            progress.responseReceived();
+            for (int i = 0; i < newSongs.size(); i++) {
+                final JsonObject song = songInfo.get(newSongs.get(i)).getAsJsonObject();
+                final SentimentResult result = analyzed.get(i);
+                results.set(newSongs.get(i), result);
+                if (!result.isEstimate()) {
+                    songSentimentDataAccessObject.saveSongSentiment(
+                            song.get("artist").getAsString(), song.get("title").getAsString(), result);
                 }
-                catch (IOException e) {
-                    // Handle API or network errors
-                    analyzePlaylistPresenter.prepareFailView("Failed to connect to the sentiment analysis service: " + e.getMessage());
+            }
+            songSentimentDataAccessObject.flush();
+        }
+        return sentimentAggregator.aggregate(titles, results);
+    }
+
+    /**
+     * Identifies an analysis: the playlist and a hash of the songs it was asked for with.
+     */
+    private record AnalysisKey(String playlistId, String songsHash) {
+    }
+
+    /**
+     * @return a SHA-256 hash of the songs' artists and titles, in order, or null for no songs
+     */
+    private static String songsHash(JsonArray songs) {
+        if (songs == null) {
+            return null;
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (int i = 0; i < songs.size(); i++) {
+            final String song;
+            if (songs.get(i).isJsonObject()) {
+                final JsonObject object = songs.get(i).getAsJsonObject();
+                song = field(object, "artist") + "\n" + field(object, "title");
+            }
+            else {
+                song = songs.get(i).toString();
+            }
+            digest.update((song + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String field(JsonObject song, String name) {
+        return song.has(name) && !song.get(name).isJsonNull() ? song.get(name).getAsString() : "";
+    }
+
+    /**
+     * One running analysis, presented to its caller and to every caller that joined it. It
+     * remembers the latest progress, estimate and partial result, presented to a caller as it
+     * joins, and the final outcome, presented to a caller that joins after it.
+     */
+    private static final class SharedAnalysis implements AnalyzePlaylistOutputBoundary {
+        private final List<AnalyzePlaylistOutputBoundary> presenters = new ArrayList<>();
+        private final CountDownLatch ended = new CountDownLatch(1);
+        private AnalyzePlaylistProgressData progressData;
+        private AnalyzePlaylistOutputData provisionalData;
+        private AnalyzePlaylistOutputData partialData;
+        private AnalyzePlaylistOutputData successData;
+        private String error;
+
+        SharedAnalysis(AnalyzePlaylistOutputBoundary presenter) {
+            presenters.add(presenter);
+        }
+
+        @Override
+        public synchronized void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+            successData = outputData;
+            for (AnalyzePlaylistOutputBoundary presenter : presenters) {
+                presenter.prepareSuccessView(outputData);
+            }
+        }
+
+        @Override
+        public synchronized void prepareProvisionalView(AnalyzePlaylistOutputData outputData) {
+            provisionalData = outputData;
+            for (AnalyzePlaylistOutputBoundary presenter : presenters) {
+                presenter.prepareProvisionalView(outputData);
+            }
+        }
+
+        @Override
+        public synchronized void preparePartialView(AnalyzePlaylistOutputData outputData) {
+            partialData = outputData;
+            for (AnalyzePlaylistOutputBoundary presenter : presenters) {
+                presenter.preparePartialView(outputData);
+            }
+        }
+
+        @Override
+        public synchronized void prepareProgressView(AnalyzePlaylistProgressData progressData) {
+            this.progressData = progressData;
+            for (AnalyzePlaylistOutputBoundary presenter : presenters) {
+                presenter.prepareProgressView(progressData);
+            }
+        }
+
+        @Override
+        public synchronized void prepareFailView(String errorMessage) {
+            error = errorMessage;
+            for (AnalyzePlaylistOutputBoundary presenter : presenters) {
+                presenter.prepareFailView(errorMessage);
+            }
+        }
+
+        /**
+         * Adds a caller, presenting it what it missed so far.
+         * @return false if the analysis ended without an outcome, so the caller has to run it itself
+         */
+        synchronized boolean join(AnalyzePlaylistOutputBoundary presenter) {
+            if (successData != null) {
+                presenter.prepareSuccessView(successData);
+                return true;
+            }
+            if (error != null) {
+                presenter.prepareFailView(error);
+                return true;
+            }
+            if (ended.getCount() == 0) {
+                return false;
+            }
+            presenters.add(presenter);
+            if (provisionalData != null) {
+                presenter.prepareProvisionalView(provisionalData);
+            }
+            if (partialData != null) {
+                presenter.preparePartialView(partialData);
+            }
+            if (progressData != null) {
+                presenter.prepareProgressView(progressData);
+            }
+            return true;
+        }
+
+        synchronized void leave(AnalyzePlaylistOutputBoundary presenter) {
+            presenters.remove(presenter);
+        }
+
+        void end() {
+            ended.countDown();
+        }
+
+        void awaitEnd() throws InterruptedException {
+            ended.await();
+        }
+
+        /**
+         * @return true if the analysis presented a final outcome, false if it was cancelled
+         */
+        synchronized boolean isFinished() {
+            return successData != null || error != null;
+        }
+    }
+
+    /**
+     * The future returned by executeAsync. Cancelling it interrupts the thread running the analysis.
+     */
+    private static final class AnalysisHandle extends CompletableFuture<Void> {
+        private Thread runner;
+
+        void run(Runnable analysis) {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
                 }
-                catch (Exception e) {
-                    // Catch any unexpected runtime errors
-                    analyzePlaylistPresenter.prepareFailView("An unexpected error occurred during analysis: " + e.getMessage());
+                runner = Thread.currentThread();
+            }
+            try {
+                analysis.run();
+                complete(null);
+            }
+            catch (RuntimeException | Error e) {
+                completeExceptionally(e);
+            }
+            finally {
+                synchronized (this) {
+                    runner = null;
                 }
-
+                // a cancel arriving as the analysis ended must not interrupt the thread's next analysis
+                Thread.interrupted();
             }
         }
 
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
     }
 
+    /**
+     * Forwards to the real presenter until the analysis is cancelled, and then nothing.
+     */
+    private static final class UnlessCancelledPresenter implements AnalyzePlaylistOutputBoundary {
+        private final AnalyzePlaylistOutputBoundary presenter;
+        private final CompletableFuture<Void> handle;
+
+        UnlessCancelledPresenter(AnalyzePlaylistOutputBoundary presenter, CompletableFuture<Void> handle) {
+            this.presenter = presenter;
+            this.handle = handle;
+        }
+
+        @Override
+        public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+            if (!handle.isCancelled()) {
+                presenter.prepareSuccessView(outputData);
+            }
+        }
+
+        @Override
+        public void prepareProvisionalView(AnalyzePlaylistOutputData outputData) {
+            if (!handle.isCancelled()) {
+                presenter.prepareProvisionalView(outputData);
+            }
+        }
+
+        @Override
+        public void preparePartialView(AnalyzePlaylistOutputData outputData) {
+            if (!handle.isCancelled()) {
+                presenter.preparePartialView(outputData);
+            }
+        }
+
+        @Override
+        public void prepareProgressView(AnalyzePlaylistProgressData progressData) {
+            if (!handle.isCancelled()) {
+                presenter.prepareProgressView(progressData);
+            }
+        }
+
+        @Override
+        public void prepareFailView(String errorMessage) {
+            if (!handle.isCancelled()) {
+                presenter.prepareFailView(errorMessage);
+            }
+        }
+    }
 }
@@ -7,5 +7,31 @@ public interface AnalyzePlaylistOutputBoundary {
 
     void prepareSuccessView(AnalyzePlaylistOutputData outputData);
 
+    /**
+     * Shows a quick estimate while the full analysis is still running.
+     * prepareSuccessView or prepareFailView follows unless the analysis is cancelled.
+     * @param outputData the estimated result
+     */
+    default void prepareProvisionalView(AnalyzePlaylistOutputData outputData) {
+    }
+
+    /**
+     * Shows the part of the result that has been generated so far.
+     * It may be called many times, each time with more of the result;
+     * prepareSuccessView or prepareFailView follows unless the analysis is cancelled.
+     * @param outputData the result received so far
+     */
+    default void preparePartialView(AnalyzePlaylistOutputData outputData) {
+    }
+
+    /**
+     * Shows how far the analysis has come: the songs looked up, the lyrics found, and whether the
+     * prompt has been sent and the response received. It is called at a fixed rate while anything
+     * changes, and once more just before prepareSuccessView or prepareFailView.
+     * @param progressData the progress so far
+     */
+    default void prepareProgressView(AnalyzePlaylistProgressData progressData) {
+    }
+
     void prepareFailView(String error);
 }
\ No newline at end of file
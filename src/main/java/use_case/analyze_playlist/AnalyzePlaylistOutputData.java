@@ -10,6 +10,9 @@ public class AnalyzePlaylistOutputData {
 
     private final String overallCategory;
     private final String summaryText;
+    private final long lyricsBytesSaved;
+    private final long estimatedTokensSaved;
+    private final boolean estimate;
 
     /**
      * Constructs the Output Data object by extracting necessary primitives from the analysis result.
@@ -20,8 +23,45 @@ public class AnalyzePlaylistOutputData {
     public AnalyzePlaylistOutputData(
             String overallCategory,
             String summaryText) {
+        this(overallCategory, summaryText, 0, 0);
+    }
+
+    /**
+     * Constructs the Output Data object, including how much lyrics compaction saved.
+     *
+     * @param overallCategory A high-level assessment of the sentiment.
+     * @param summaryText The full text analysis from the LLM.
+     * @param lyricsBytesSaved The bytes of lyrics removed before analysis.
+     * @param estimatedTokensSaved The approximate number of prompt tokens those bytes represent.
+     */
+    public AnalyzePlaylistOutputData(
+            String overallCategory,
+            String summaryText,
+            long lyricsBytesSaved,
+            long estimatedTokensSaved) {
+        this(overallCategory, summaryText, lyricsBytesSaved, estimatedTokensSaved, false);
+    }
+
+    /**
+     * Constructs the Output Data object for a result that may be a local estimate.
+     *
+     * @param overallCategory A high-level assessment of the sentiment.
+     * @param summaryText The full text analysis.
+     * @param lyricsBytesSaved The bytes of lyrics removed before analysis.
+     * @param estimatedTokensSaved The approximate number of prompt tokens those bytes represent.
+     * @param estimate True if the result is a quick local estimate rather than the LLM's analysis.
+     */
+    public AnalyzePlaylistOutputData(
+            String overallCategory,
+            String summaryText,
+            long lyricsBytesSaved,
+            long estimatedTokensSaved,
+            boolean estimate) {
         this.overallCategory = overallCategory;
         this.summaryText = summaryText;
+        this.lyricsBytesSaved = lyricsBytesSaved;
+        this.estimatedTokensSaved = estimatedTokensSaved;
+        this.estimate = estimate;
     }
 
     // Getters for the Presenter
@@ -32,4 +72,16 @@ public class AnalyzePlaylistOutputData {
     public String getSummaryText() {
         return summaryText;
     }
+
+    public long getLyricsBytesSaved() {
+        return lyricsBytesSaved;
+    }
+
+    public long getEstimatedTokensSaved() {
+        return estimatedTokensSaved;
+    }
+
+    public boolean isEstimate() {
+        return estimate;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package use_case.analyze_playlist;
+
+/**
+ * How far an analysis has come, and how long each stage has taken so far.
+ */
+public class AnalyzePlaylistProgressData {
+
+    /**
+     * The stages of an analysis, in order.
+     */
+    public enum Stage {
+        LOOKING_UP_LYRICS,
+        PROMPT_SENT,
+        RECEIVING_RESPONSE,
+        RESPONSE_RECEIVED
+    }
+
+    private final Stage stage;
+    private final int songsAttempted;
+    private final int songsToTry;
+    private final int lyricsFound;
+    private final int lyricsWanted;
+    private final long bytesCollected;
+    private final long lyricsMillis;
+    private final long waitingMillis;
+    private final long receivingMillis;
+
+    /**
+     * Constructs the progress data.
+     * @param stage the stage the analysis is in
+     * @param songsAttempted the songs looked up so far
+     * @param songsToTry the songs that may be looked up, or 0 if not known
+     * @param lyricsFound the songs whose lyrics were found
+     * @param lyricsWanted the number of lyrics the lookup stops at, or 0 if not known
+     * @param bytesCollected the UTF-8 size of the lyrics found, before compaction
+     * @param lyricsMillis the time spent looking up lyrics
+     * @param waitingMillis the time from sending the prompt to the first part of the response
+     * @param receivingMillis the time from the first part of the response to the whole of it
+     */
+    public AnalyzePlaylistProgressData(Stage stage, int songsAttempted, int songsToTry, int lyricsFound,
+                                       int lyricsWanted, long bytesCollected, long lyricsMillis,
+                                       long waitingMillis, long receivingMillis) {
+        this.stage = stage;
+        this.songsAttempted = songsAttempted;
+        this.songsToTry = songsToTry;
+        this.lyricsFound = lyricsFound;
+        this.lyricsWanted = lyricsWanted;
+        this.bytesCollected = bytesCollected;
+        this.lyricsMillis = lyricsMillis;
+        this.waitingMillis = waitingMillis;
+        this.receivingMillis = receivingMillis;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public int getSongsAttempted() {
+        return songsAttempted;
+    }
+
+    public int getSongsToTry() {
+        return songsToTry;
+    }
+
+    public int getLyricsFound() {
+        return lyricsFound;
+    }
+
+    public int getLyricsWanted() {
+        return lyricsWanted;
+    }
+
+    public long getBytesCollected() {
+        return bytesCollected;
+    }
+
+    public long getLyricsMillis() {
+        return lyricsMillis;
+    }
+
+    public long getWaitingMillis() {
+        return waitingMillis;
+    }
+
+    public long getReceivingMillis() {
+        return receivingMillis;
+    }
+}
@@ -0,0 +1,120 @@
+package use_case.analyze_playlist;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Shrinks song lyrics before they are sent for sentiment analysis.
+ *
+ * Repeating a chorus does not change what a song is about, but it does multiply the size of the
+ * prompt. Within each song, every line is kept only the first time it appears, so a repeated
+ * chorus or stanza collapses to a single copy and stanzas left empty disappear. Section markers
+ * such as [Chorus] or (x2), and boilerplate the lyrics provider adds around the lyrics, are
+ * removed. Stanza breaks that remain are kept, so the text still reads like lyrics. A song with
+ * nothing left, e.g. only markers and boilerplate, has no lyrics to analyze and is dropped.
+ */
+public class LyricsCompactor {
+
+    /**
+     * A rough average for English text, good enough to show the effect of compaction.
+     */
+    private static final int BYTES_PER_TOKEN = 4;
+
+    private static final Pattern LINE_BREAK = Pattern.compile("\r\n|\r|\n");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern SECTION_MARKER = Pattern.compile("^\\[[^\\]]*\\]$");
+    private static final Pattern REPEAT_SUFFIX =
+            Pattern.compile("\\s*[\\[(]\\s*(?:x\\s*\\d+|\\d+\\s*x|repeat)\\s*[\\])]$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern[] BOILERPLATE = {
+            // lyrics.ovh prefixes some lyrics with a French credit line
+            Pattern.compile("^paroles de la chanson .+ par .+$", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^\\**\\s*this lyrics is not for commercial use\\s*\\**.*$", Pattern.CASE_INSENSITIVE),
+    };
+
+    /**
+     * Compacts the "lyrics" field of every song in place, and removes the songs whose lyrics
+     * compact to nothing.
+     * @param songsInfo songs' title, artist and lyrics, as returned by getLyrics
+     * @return the number of UTF-8 bytes removed across all songs
+     */
+    public long compactSongs(JsonArray songsInfo) {
+        long saved = 0;
+        for (int i = songsInfo.size() - 1; i >= 0; i--) {
+            final JsonObject song = songsInfo.get(i).getAsJsonObject();
+            if (!song.has("lyrics")) {
+                continue;
+            }
+            final String lyrics = song.get("lyrics").getAsString();
+            final String compacted = compact(lyrics);
+            saved += utf8Length(lyrics) - utf8Length(compacted);
+            if (compacted.isEmpty()) {
+                songsInfo.remove(i);
+            }
+            else {
+                song.addProperty("lyrics", compacted);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Compacts one song's lyrics.
+     * @param lyrics the raw lyrics
+     * @return the lyrics without repeated lines, section markers or provider boilerplate
+     */
+    public String compact(String lyrics) {
+        final StringBuilder compacted = new StringBuilder(lyrics.length());
+        final Set<String> seen = new HashSet<>();
+        boolean stanzaBreak = false;
+
+        for (String line : LINE_BREAK.split(lyrics)) {
+            final String stripped = line.strip();
+            if (stripped.isEmpty()) {
+                // only break before the next line that is actually kept
+                stanzaBreak = compacted.length() > 0;
+                continue;
+            }
+            final String text = REPEAT_SUFFIX.matcher(stripped).replaceFirst("");
+            if (text.isEmpty() || isMarkerOrBoilerplate(text)
+                    || !seen.add(WHITESPACE.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" "))) {
+                continue;
+            }
+            if (compacted.length() > 0) {
+                compacted.append(stanzaBreak ? "\n\n" : "\n");
+            }
+            compacted.append(text);
+            stanzaBreak = false;
+        }
+        return compacted.toString();
+    }
+
+    /**
+     * @param bytes a number of bytes of lyrics
+     * @return the approximate number of model tokens those bytes make up
+     */
+    public static long estimateTokens(long bytes) {
+        return (bytes + BYTES_PER_TOKEN - 1) / BYTES_PER_TOKEN;
+    }
+
+    private static boolean isMarkerOrBoilerplate(String line) {
+        if (SECTION_MARKER.matcher(line).matches()) {
+            return true;
+        }
+        for (Pattern pattern : BOILERPLATE) {
+            if (pattern.matcher(line).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,22 @@
+package use_case.analyze_playlist;
+
+/**
+ * Receives the progress of a lyrics lookup while getLyrics is running.
+ * It may be called from any thread.
+ */
+public interface LyricsProgressListener {
+
+    /**
+     * Called once before the first song is looked up.
+     * @param songsToTry the songs that may be looked up
+     * @param lyricsWanted the number of lyrics the lookup stops at
+     */
+    void onLookupPlanned(int songsToTry, int lyricsWanted);
+
+    /**
+     * Called each time a song has been looked up, from the cache or over the network.
+     * @param found true if lyrics were found
+     * @param lyricsBytes the UTF-8 size of the lyrics found, or 0
+     */
+    void onSongLookedUp(boolean found, long lyricsBytes);
+}
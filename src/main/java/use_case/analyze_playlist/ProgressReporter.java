@@ -0,0 +1,133 @@
+package use_case.analyze_playlist;
+
+import com.google.gson.JsonArray;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the progress of one analysis and presents it at a fixed rate.
+ *
+ * Lyrics lookups can report many events in a burst, from several threads. Each event only
+ * updates the counters; a scheduled tick presents the latest state if anything changed since the
+ * last tick, so the presenter sees at most one progress event per interval however many happened.
+ * finish presents the final state at once and stops the ticks.
+ */
+final class ProgressReporter implements LyricsProgressListener {
+
+    private final AnalyzePlaylistOutputBoundary presenter;
+    private final long startedAt = System.nanoTime();
+    private final ScheduledFuture<?> ticks;
+    private AnalyzePlaylistProgressData.Stage stage = AnalyzePlaylistProgressData.Stage.LOOKING_UP_LYRICS;
+    private int songsAttempted;
+    private int songsToTry;
+    private int lyricsFound;
+    private int lyricsWanted;
+    private long bytesCollected;
+    // System.nanoTime of each stage's end, or 0 while it has not ended
+    private long lyricsDoneAt;
+    private long promptSentAt;
+    private long responseStartedAt;
+    private long responseReceivedAt;
+    private boolean changed = true;
+    private boolean finished;
+
+    ProgressReporter(AnalyzePlaylistOutputBoundary presenter, ScheduledExecutorService scheduler, long intervalMillis) {
+        this.presenter = presenter;
+        this.ticks = scheduler.scheduleAtFixedRate(this::present, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void onLookupPlanned(int songsToTry, int lyricsWanted) {
+        this.songsToTry = songsToTry;
+        this.lyricsWanted = lyricsWanted;
+        changed = true;
+    }
+
+    @Override
+    public synchronized void onSongLookedUp(boolean found, long lyricsBytes) {
+        songsAttempted++;
+        if (found) {
+            lyricsFound++;
+            bytesCollected += lyricsBytes;
+        }
+        changed = true;
+    }
+
+    /**
+     * Ends the lyrics stage with what was actually found, whether or not the lookup reported it.
+     */
+    synchronized void lyricsFound(JsonArray songsInfo) {
+        long bytes = 0;
+        for (int i = 0; i < songsInfo.size(); i++) {
+            if (songsInfo.get(i).getAsJsonObject().has("lyrics")) {
+                bytes += songsInfo.get(i).getAsJsonObject().get("lyrics").getAsString()
+                        .getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        lyricsFound = songsInfo.size();
+        bytesCollected = bytes;
+        songsAttempted = Math.max(songsAttempted, lyricsFound);
+        lyricsDoneAt = System.nanoTime();
+        changed = true;
+    }
+
+    synchronized void promptSent() {
+        stage = AnalyzePlaylistProgressData.Stage.PROMPT_SENT;
+        promptSentAt = System.nanoTime();
+        changed = true;
+    }
+
+    /**
+     * Marks the first part of a streamed response; later parts change nothing.
+     */
+    synchronized void responseStarted() {
+        if (responseStartedAt == 0 && promptSentAt != 0) {
+            stage = AnalyzePlaylistProgressData.Stage.RECEIVING_RESPONSE;
+            responseStartedAt = System.nanoTime();
+            changed = true;
+        }
+    }
+
+    synchronized void responseReceived() {
+        stage = AnalyzePlaylistProgressData.Stage.RESPONSE_RECEIVED;
+        responseReceivedAt = System.nanoTime();
+        changed = true;
+    }
+
+    /**
+     * Presents the final state, if it has not been presented yet, and stops the ticks.
+     * Calling it again does nothing.
+     */
+    synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        present();
+        finished = true;
+        ticks.cancel(false);
+    }
+
+    private synchronized void present() {
+        if (finished || !changed) {
+            return;
+        }
+        changed = false;
+        final long now = System.nanoTime();
+        final long lyricsEnd = lyricsDoneAt != 0 ? lyricsDoneAt : now;
+        final long waitingEnd = responseStartedAt != 0 ? responseStartedAt
+                : responseReceivedAt != 0 ? responseReceivedAt : now;
+        final long receivingEnd = responseReceivedAt != 0 ? responseReceivedAt : now;
+        presenter.prepareProgressView(new AnalyzePlaylistProgressData(stage, songsAttempted, songsToTry,
+                lyricsFound, lyricsWanted, bytesCollected,
+                millis(lyricsEnd - startedAt),
+                promptSentAt == 0 ? 0 : millis(waitingEnd - promptSentAt),
+                responseStartedAt == 0 ? 0 : millis(receivingEnd - responseStartedAt)));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, nanos));
+    }
+}
@@ -0,0 +1,92 @@
+package use_case.analyze_playlist;
+
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Combines the sentiment of several songs, or several parts of a playlist, into one
+ * playlist-level SentimentResult without another call to the sentiment service.
+ *
+ * The playlist's sentiment word is the one shared by the most parts (ties go to the word seen
+ * first); the explanation says how many parts agree and lists each part's own finding.
+ * If any part is only an estimate, so is the aggregate.
+ */
+public class SentimentAggregator {
+
+    private final SentimentResultFactory sentimentResultFactory;
+
+    public SentimentAggregator(SentimentResultFactory sentimentResultFactory) {
+        this.sentimentResultFactory = sentimentResultFactory;
+    }
+
+    /**
+     * Aggregates per-part results.
+     *
+     * @param labels A label for each part, e.g. the song title, in the same order as results.
+     * @param results The SentimentResult of each part; must not be empty.
+     * @return The playlist-level SentimentResult.
+     */
+    public SentimentResult aggregate(List<String> labels, List<SentimentResult> results) {
+        return aggregate(labels, results, "songs");
+    }
+
+    /**
+     * Aggregates per-part results.
+     *
+     * @param labels A label for each part, in the same order as results.
+     * @param results The SentimentResult of each part; must not be empty.
+     * @param partsName What the parts are called in the explanation, in the plural, e.g. "songs".
+     * @return The playlist-level SentimentResult.
+     */
+    public SentimentResult aggregate(List<String> labels, List<SentimentResult> results, String partsName) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+
+        // the first spelling seen of each word, and how many parts chose it
+        final Map<String, String> spelling = new LinkedHashMap<>();
+        final Map<String, Integer> votes = new LinkedHashMap<>();
+        boolean estimate = false;
+        for (SentimentResult result : results) {
+            estimate |= result.isEstimate();
+            final String word = result.getSentimentWord().trim();
+            final String folded = word.toLowerCase(Locale.ROOT);
+            spelling.putIfAbsent(folded, word);
+            votes.merge(folded, 1, Integer::sum);
+        }
+
+        String topWord = null;
+        int topVotes = 0;
+        for (Map.Entry<String, Integer> entry : votes.entrySet()) {
+            if (entry.getValue() > topVotes) {
+                topWord = entry.getKey();
+                topVotes = entry.getValue();
+            }
+        }
+
+        final StringBuilder explanation = new StringBuilder();
+        if (topVotes > 1) {
+            explanation.append(topVotes).append(" of ").append(results.size())
+                    .append(" ").append(partsName).append(" share a ").append(spelling.get(topWord)).append(" feel.");
+        }
+        else {
+            explanation.append("The ").append(partsName).append(" in this playlist each have their own feel; ")
+                    .append(spelling.get(topWord)).append(" comes first.");
+        }
+        for (int i = 0; i < results.size(); i++) {
+            explanation.append("\n\n").append(labels.get(i)).append(" (")
+                    .append(results.get(i).getSentimentWord().trim()).append("): ")
+                    .append(results.get(i).getSentimentExplanation());
+        }
+
+        if (estimate) {
+            return sentimentResultFactory.createEstimate(spelling.get(topWord), explanation.toString());
+        }
+        return sentimentResultFactory.create(spelling.get(topWord), explanation.toString());
+    }
+}
@@ -2,6 +2,8 @@ package use_case.analyze_playlist;
 
 import entity.SentimentResult;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Defines the contract for external services (like the Gemini API) to perform
@@ -21,6 +23,52 @@ public interface SentimentDataAccessInterface {
      */
     SentimentResult analyzeSentiment(String combinedLyrics) throws IOException;
 
+    /**
+     * Analyzes the lyrics like analyzeSentiment(String), reporting the result as it is generated.
+     * Implementations that cannot stream return the complete result without calling the listener.
+     *
+     * @param combinedLyrics A single String containing the concatenated lyrics
+     * of all songs in the playlist.
+     * @param listener Receives the partial result as it arrives, or null to wait for the whole result.
+     * @return A SentimentResult entity containing the structured analysis.
+     * @throws IOException If a network or API communication error occurs.
+     */
+    default SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener)
+            throws IOException {
+        return analyzeSentiment(combinedLyrics);
+    }
+
+    /**
+     * Analyzes several blocks of lyrics, e.g. several playlists, each on its own.
+     * Implementations backed by a remote service can answer them in fewer requests;
+     * by default each one is analyzed separately.
+     *
+     * @param lyricsList the combined lyrics of each playlist
+     * @return one SentimentResult per entry of lyricsList, in the same order
+     * @throws IOException If a network or API communication error occurs.
+     */
+    default List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) throws IOException {
+        final List<SentimentResult> results = new ArrayList<>(lyricsList.size());
+        for (String lyrics : lyricsList) {
+            results.add(analyzeSentiment(lyrics));
+        }
+        return results;
+    }
+
+    /**
+     * Analyzes several blocks of lyrics like analyzeSentimentBatch(List), reporting each result
+     * as it is generated. Implementations that cannot stream do not call the listener.
+     *
+     * @param lyricsList the combined lyrics of each playlist
+     * @param listener receives the result being generated as it arrives, or null
+     * @return one SentimentResult per entry of lyricsList, in the same order
+     * @throws IOException If a network or API communication error occurs.
+     */
+    default List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList, SentimentStreamListener listener)
+            throws IOException {
+        return analyzeSentimentBatch(lyricsList);
+    }
+
     // NOTE: If you decide to add the Lyric API integration later, you might
     // rename this interface to DataAccessInterface and add a getLyrics() method here,
     // or create a separate LyricDataAccessInterface. For now, this is dedicated to Gemini's sentiment.
@@ -0,0 +1,15 @@
+package use_case.analyze_playlist;
+
+/**
+ * Receives a sentiment result while it is still being generated.
+ */
+public interface SentimentStreamListener {
+
+    /**
+     * Called each time more of the result has arrived.
+     *
+     * @param sentimentWord The sentiment word received so far; empty until it starts arriving.
+     * @param explanationSoFar The explanation received so far; empty until it starts arriving.
+     */
+    void onPartialResult(String sentimentWord, String explanationSoFar);
+}
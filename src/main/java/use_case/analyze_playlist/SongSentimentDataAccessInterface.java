@@ -0,0 +1,36 @@
+package use_case.analyze_playlist;
+
+import entity.SentimentResult;
+
+/**
+ * Stores the sentiment of individual songs, so a song shared by several playlists
+ * is only analyzed once.
+ */
+public interface SongSentimentDataAccessInterface {
+
+    /**
+     * Looks up a song analyzed earlier.
+     *
+     * @param artist The song's artist.
+     * @param title The song's title.
+     * @return The stored SentimentResult, or null if the song has not been analyzed yet.
+     */
+    SentimentResult getSongSentiment(String artist, String title);
+
+    /**
+     * Stores the sentiment of a song. It can be looked up at once, but is only guaranteed
+     * to be kept across restarts after the next flush.
+     *
+     * @param artist The song's artist.
+     * @param title The song's title.
+     * @param result The song's SentimentResult.
+     */
+    void saveSongSentiment(String artist, String title, SentimentResult result);
+
+    /**
+     * Writes the songs stored since the last flush to permanent storage, so a batch of songs
+     * is written once rather than once per song.
+     */
+    default void flush() {
+    }
+}
@@ -2,16 +2,37 @@ package use_case.analyze_playlist;
 
 import com.google.gson.JsonArray;
 
+import java.io.IOException;
+
 public interface SpotifyPlaylistDataAccessInterface {
+    /**
+     * Starts the header line that precedes each song in getStringLyrics,
+     * so later stages can tell where one song ends and the next begins.
+     */
+    String SONG_HEADER_PREFIX = "### ";
+
     /**
      * Get Lyrics from playlist's songs method.
      * @param songs JsonArray get from Playlist
      * @return A JsonArray of songs' title, artist and lyrics
+     * @throws IOException if the lyrics service cannot be used at all right now
+     */
+    JsonArray getLyrics(JsonArray songs) throws IOException;
+
+    /**
+     * Get Lyrics from playlist's songs, reporting each song looked up as it goes.
+     * @param songs JsonArray get from Playlist
+     * @param listener told about each song looked up
+     * @return A JsonArray of songs' title, artist and lyrics
+     * @throws IOException if the lyrics service cannot be used at all right now
      */
-    JsonArray getLyrics(JsonArray songs);
+    default JsonArray getLyrics(JsonArray songs, LyricsProgressListener listener) throws IOException {
+        return getLyrics(songs);
+    }
 
     /**
-     * Get String of Lyrics.
+     * Get String of Lyrics. Each song starts on a header line made of SONG_HEADER_PREFIX,
+     * the title, " - " and the artist, followed by its lyrics.
      * @param songsInfo JsonArray of songs' information
      * @return A String of songs' lyrics
      */
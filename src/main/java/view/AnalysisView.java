@@ -1,6 +1,8 @@
 package view;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import entity.SentimentResult;
 import interface_adapter.analysis.AnalysisState;
 import interface_adapter.analysis.AnalysisViewModel;
 
@@ -8,6 +10,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.Objects;
 
 public class AnalysisView extends JPanel implements PropertyChangeListener {
 
@@ -19,6 +22,14 @@ public class AnalysisView extends JPanel implements PropertyChangeListener {
     private final JButton closeButton;
     private final SentimentPanel sentimentPanel;
 
+    // what the view currently shows, as the panel starts out
+    private JsonArray shownSongs;
+    private boolean shownLoading;
+    private boolean shownStreaming;
+    private boolean shownProvisional;
+    private SentimentResult shownResult;
+    private String shownErrorMessage;
+
     public AnalysisView(AnalysisViewModel analysisViewModel) {
         this.analysisViewModel = analysisViewModel;
         this.analysisViewModel.addPropertyChangeListener(this);
@@ -93,31 +104,70 @@ public class AnalysisView extends JPanel implements PropertyChangeListener {
     }
 
     private void updateViewFromState(AnalysisState state) {
-        sentimentPanel.setLoading(state.isLoading());
         playlistNameLabel.setText(state.getPlaylistName()); // Always show playlist title (part of Request 2)
 
-        // Populate song list regardless of loading state
-        DefaultListModel<JsonObject> model = (DefaultListModel<JsonObject>) songList.getModel();
-        model.clear();
-        if (state.getSongs() != null) {
-            for (int i = 0; i < state.getSongs().size(); i++) {
-                model.addElement(state.getSongs().get(i).getAsJsonObject());
+        // Populate song list regardless of loading state, but only when it is a different list
+        if (state.getSongs() != shownSongs) {
+            DefaultListModel<JsonObject> model = (DefaultListModel<JsonObject>) songList.getModel();
+            model.clear();
+            if (state.getSongs() != null) {
+                for (int i = 0; i < state.getSongs().size(); i++) {
+                    model.addElement(state.getSongs().get(i).getAsJsonObject());
+                }
             }
+            shownSongs = state.getSongs();
+        }
+
+        // the state object is reused for every event, so a progress-only change is recognized by
+        // nothing else differing from what is on screen; it leaves the result area as it is
+        if (state.isLoading() != shownLoading || state.isStreaming() != shownStreaming
+                || state.isProvisional() != shownProvisional || state.getResult() != shownResult
+                || !Objects.equals(state.getErrorMessage(), shownErrorMessage)) {
+            updateResultFromState(state);
         }
 
-        if (state.isLoading()) {
+        // an estimate or a streamed result says more on the bar than the stage does
+        if (state.isLoading() && state.getProgressPercent() >= 0) {
+            sentimentPanel.setProgress(state.getProgressPercent(),
+                    state.isStreaming() || state.isProvisional() ? null : state.getProgressText());
+        }
+        sentimentPanel.setStageTimings(state.getStageTimings());
+    }
+
+    private void updateResultFromState(AnalysisState state) {
+        if (state.isLoading() != shownLoading) {
+            sentimentPanel.setLoading(state.isLoading());
+        }
+
+        if (state.isLoading() && state.isStreaming() && state.getResult() != null) {
+            sentimentPanel.setStreaming();
+            sentimentPanel.appendPartialResult(state.getResult());
+            sentimentPanel.setCompactionSavings(state.getLyricsBytesSaved(), state.getEstimatedTokensSaved());
+        } else if (state.isLoading() && state.isProvisional() && state.getResult() != null) {
+            sentimentPanel.setProvisional();
+            sentimentPanel.setResult(state.getResult());
+            sentimentPanel.setCompactionSavings(state.getLyricsBytesSaved(), state.getEstimatedTokensSaved());
+        } else if (state.isLoading()) {
             // playlistNameLabel.setText("Analyzing..."); // Request 2: Get rid of "Analyzing..." text
             sentimentPanel.setResult(null); // Clear previous results
+            sentimentPanel.setCompactionSavings(0, 0);
         } else {
             // Not loading: update results and handle errors
             if (state.getResult() != null) {
                 sentimentPanel.setResult(state.getResult());
+                sentimentPanel.setCompactionSavings(state.getLyricsBytesSaved(), state.getEstimatedTokensSaved());
             }
 
             if (state.getErrorMessage() != null) {
                 JOptionPane.showMessageDialog(this, state.getErrorMessage(), "Analysis Error", JOptionPane.ERROR_MESSAGE);
             }
         }
+
+        shownLoading = state.isLoading();
+        shownStreaming = state.isStreaming();
+        shownProvisional = state.isProvisional();
+        shownResult = state.getResult();
+        shownErrorMessage = state.getErrorMessage();
     }
 
     private static class SongListCellRenderer extends JPanel implements ListCellRenderer<JsonObject> {
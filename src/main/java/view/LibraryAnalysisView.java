@@ -0,0 +1,128 @@
+package view;
+
+import interface_adapter.analyze_library.AnalyzeLibraryState;
+import interface_adapter.analyze_library.AnalyzeLibraryViewModel;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+/**
+ * Shows an Analyze Library job: its progress, a line per playlist as each result arrives,
+ * and the explanation of the selected playlist.
+ */
+public class LibraryAnalysisView extends JPanel implements PropertyChangeListener {
+    private static final long serialVersionUID = 1L;
+
+    private final AnalyzeLibraryViewModel analyzeLibraryViewModel;
+    private final JProgressBar progressBar = new JProgressBar();
+    private final JLabel statusLabel = new JLabel(" ");
+    private final DefaultTableModel resultsModel =
+            new DefaultTableModel(new Object[] {"Playlist", "Sentiment"}, 0) {
+                @Override
+                public boolean isCellEditable(int row, int column) {
+                    return false;
+                }
+            };
+    private final JTable resultsTable = new JTable(resultsModel);
+    private final JTextArea detailArea = new JTextArea(6, 40);
+    private final JButton closeButton = new JButton("Close");
+
+    public LibraryAnalysisView(AnalyzeLibraryViewModel analyzeLibraryViewModel) {
+        this.analyzeLibraryViewModel = analyzeLibraryViewModel;
+        this.analyzeLibraryViewModel.addPropertyChangeListener(this);
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        buildUI();
+    }
+
+    private void buildUI() {
+        // --- Top: title, progress and close button ---
+        JLabel title = new JLabel(AnalyzeLibraryViewModel.TITLE_LABEL);
+        title.setFont(new Font("SansSerif", Font.BOLD, 18));
+
+        JPanel topPanel = new JPanel(new BorderLayout(5, 5));
+        topPanel.add(title, BorderLayout.WEST);
+        topPanel.add(closeButton, BorderLayout.EAST);
+
+        progressBar.setStringPainted(true);
+        JPanel progressPanel = new JPanel(new BorderLayout(5, 5));
+        progressPanel.add(progressBar, BorderLayout.NORTH);
+        progressPanel.add(statusLabel, BorderLayout.SOUTH);
+        topPanel.add(progressPanel, BorderLayout.SOUTH);
+
+        closeButton.addActionListener(e -> {
+            Window window = SwingUtilities.getWindowAncestor(this);
+            if (window != null) {
+                window.dispose();
+            }
+        });
+
+        // --- Center: one line per playlist; the selected one's explanation below ---
+        resultsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultsTable.setPreferredScrollableViewportSize(new Dimension(420, 200));
+        resultsTable.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showDetail(resultsTable.getSelectedRow());
+            }
+        });
+
+        detailArea.setEditable(false);
+        detailArea.setLineWrap(true);
+        detailArea.setWrapStyleWord(true);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(resultsTable), new JScrollPane(detailArea));
+        splitPane.setResizeWeight(0.6);
+
+        add(topPanel, BorderLayout.NORTH);
+        add(splitPane, BorderLayout.CENTER);
+
+        updateViewFromState(analyzeLibraryViewModel.getState());
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if ("state".equals(evt.getPropertyName())) {
+            updateViewFromState((AnalyzeLibraryState) evt.getNewValue());
+        }
+    }
+
+    private void updateViewFromState(AnalyzeLibraryState state) {
+        progressBar.setMaximum(Math.max(1, state.getDistinctSongs()));
+        progressBar.setValue(state.getSongsResolved());
+        progressBar.setString(state.getSongsResolved() + " of " + state.getDistinctSongs() + " songs");
+
+        if (state.getErrorMessage() != null) {
+            statusLabel.setText(state.getErrorMessage());
+        } else if (state.getSummary() != null) {
+            progressBar.setValue(progressBar.getMaximum());
+            statusLabel.setText(state.getSummary());
+        } else {
+            statusLabel.setText(state.getPlaylistsDone() + " of " + state.getPlaylistCount() + " playlists done");
+        }
+
+        // rows are only ever added, so only the new ones need adding
+        List<AnalyzeLibraryState.PlaylistRow> rows = state.getRows();
+        if (rows.size() < resultsModel.getRowCount()) {
+            resultsModel.setRowCount(0);
+        }
+        for (int i = resultsModel.getRowCount(); i < rows.size(); i++) {
+            AnalyzeLibraryState.PlaylistRow row = rows.get(i);
+            String sentiment = row.sentimentWord() == null ? "Not analyzed"
+                    : row.estimate() ? row.sentimentWord() + " (estimate)" : row.sentimentWord();
+            resultsModel.addRow(new Object[] {row.playlistName(), sentiment});
+        }
+        showDetail(resultsTable.getSelectedRow());
+    }
+
+    private void showDetail(int row) {
+        List<AnalyzeLibraryState.PlaylistRow> rows = analyzeLibraryViewModel.getState().getRows();
+        detailArea.setText(row >= 0 && row < rows.size() ? rows.get(row).detail() : "");
+        detailArea.setCaretPosition(0);
+    }
+}
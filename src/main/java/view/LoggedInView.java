@@ -6,6 +6,8 @@ import data_access.AnalysisStatsDataAccessObject;
 import entity.Playlist;
 import interface_adapter.analysis.AnalysisController;
 import interface_adapter.analysis.AnalysisViewModel;
+import interface_adapter.analyze_library.AnalyzeLibraryController;
+import interface_adapter.analyze_library.AnalyzeLibraryViewModel;
 import interface_adapter.logged_in.LoggedInViewModel;
 import interface_adapter.logged_in.PlaylistItem;
 import interface_adapter.logged_in.SelectPlaylistController;
@@ -13,14 +15,19 @@ import interface_adapter.logout.LogoutController;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main page shown after user logs in.
  * - Shows a list of playlists
  * - Instruction text on the right
- * - Buttons to refresh, analyze, and log out
+ * - Buttons to refresh, analyze one or all playlists, and log out
  */
 public class LoggedInView extends JPanel implements PropertyChangeListener {
 
@@ -31,6 +38,8 @@ public class LoggedInView extends JPanel implements PropertyChangeListener {
         private LogoutController logoutController;
         private SelectPlaylistController selectPlaylistController;
         private AnalysisController analysisController;
+        private AnalyzeLibraryController analyzeLibraryController;
+        private AnalyzeLibraryViewModel analyzeLibraryViewModel;
     
         // --- Main UI components ---
         private final DefaultListModel<PlaylistItem> playlistListModel = new DefaultListModel<>();
@@ -38,6 +47,7 @@ public class LoggedInView extends JPanel implements PropertyChangeListener {
     
         private final JButton refreshButton = new JButton("Refresh Playlists");
         private final JButton analyzeButton = new JButton("Analyze Selected");
+        private final JButton analyzeAllButton = new JButton("Analyze All");
         private final JButton showStatsButton = new JButton("Show Stats");
         private final JButton logoutButton = new JButton("Log Out");
     
@@ -78,7 +88,8 @@ public class LoggedInView extends JPanel implements PropertyChangeListener {
             JTextArea infoArea = new JTextArea(
                     "How to use:\n\n" +
                             "1. Select one of your playlists from the list.\n" +
-                            "2. Click \"Analyze Selected\" to run lyric sentiment analysis.\n\n" +
+                            "2. Click \"Analyze Selected\" to run lyric sentiment analysis.\n" +
+                            "   Or click \"Analyze All\" to analyze every playlist at once.\n\n" +
                             "Notes:\n" +
                             "- \"Refresh Playlists\" will later be connected to Spotify.\n" +
                             "- \"Analyze Selected\" will later call the Analysis Use Case."
@@ -108,6 +119,7 @@ public class LoggedInView extends JPanel implements PropertyChangeListener {
             JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
             buttonPanel.add(refreshButton);
             buttonPanel.add(analyzeButton);
+            buttonPanel.add(analyzeAllButton);
             buttonPanel.add(showStatsButton);
             buttonPanel.add(logoutButton);
     
@@ -181,6 +193,10 @@ public class LoggedInView extends JPanel implements PropertyChangeListener {
 
                 var analysisState = analysisViewModel.getState();
                 analysisState.setLoading(true);
+                analysisState.setProvisional(false);
+                analysisState.setStreaming(false);
+                analysisState.setProgress(-1, null);
+                analysisState.setStageTimings(null);
                 analysisState.setPlaylistName(playlist.getPlaylistName());
                 // Pass the songs to the state so the view can display them immediately
                 analysisState.setSongs(playlist.getSongs());
@@ -195,50 +211,37 @@ public class LoggedInView extends JPanel implements PropertyChangeListener {
                 analysisDialog.setLocationRelativeTo(this);
                 analysisDialog.setVisible(true);
 
-                // --- Part 2: Run the actual analysis in a background thread ---
+                // --- Part 2: Run the actual analysis in the background ---
 
-                SwingWorker<Void, Void> worker = new SwingWorker<>() {
-                    @Override
-                    protected Void doInBackground() throws Exception {
-                        if (samplePlaylist != null && playlist.getPlaylistId().equals(samplePlaylist.getPlaylistId())) {
-                            JsonArray songsWithLyrics = new JsonArray();
-                            songsWithLyrics.add(createSong("Riptide", "Vance Joy"));
-                            songsWithLyrics.add(createSong("Let Her Go", "Passenger"));
-                            songsWithLyrics.add(createSong("Hey There Delilah", "Plain White T's"));
-                            analysisController.execute(
-                                playlist.getPlaylistId(),
-                                playlist.getPlaylistName(),
-                                songsWithLyrics
-                            );
-                        } else {
-                            analysisController.execute(
-                                playlist.getPlaylistId(),
-                                playlist.getPlaylistName(),
-                                playlist.getSongs()
-                            );
-                        }
-                        return null;
-                    }
-
-                    @Override
-                    protected void done() {
-                        // The presenter will update the view model when the analysis is complete.
-                        // We could add error handling here if the worker throws an exception.
-                        try {
-                            get(); // Call get() to retrieve the result and propagate exceptions
-                        } catch (Exception ex) {
-                            // The presenter should have already handled this, but as a fallback:
+                CompletableFuture<Void> analysis = analysisController.executeAsync(
+                        playlist.getPlaylistId(),
+                        playlist.getPlaylistName(),
+                        songsForAnalysis(playlist)
+                );
+                analysis.whenComplete((ignored, ex) -> {
+                    // The presenter updates the view model; this only catches what it could not handle.
+                    if (ex != null && !analysis.isCancelled()) {
+                        SwingUtilities.invokeLater(() -> {
                             var currentState = analysisViewModel.getState();
                             currentState.setLoading(false);
                             currentState.setErrorMessage("An unexpected error occurred during analysis: " + ex.getMessage());
                             analysisViewModel.firePropertyChanged();
-                        }
+                        });
                     }
-                };
+                });
 
-                worker.execute();
+                // Closing the dialog stops the analysis and its lyrics and Gemini requests
+                analysisDialog.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent event) {
+                        analysis.cancel(true);
+                    }
+                });
             });
 
+            // Analyze every playlist in one job
+            analyzeAllButton.addActionListener(e -> analyzeAllPlaylists());
+
             // Show stats button
             showStatsButton.addActionListener(e -> {
                 AnalysisStatsDataAccessObject statsDAO = new AnalysisStatsDataAccessObject("analysis_stats.json");
@@ -264,12 +267,89 @@ public class LoggedInView extends JPanel implements PropertyChangeListener {
             });
         }
     
+        /**
+         * The songs to look lyrics up for. The sample playlist's band is listed
+         * under a name the lyrics service does not know, so it is looked up under the other one.
+         */
+        private JsonArray songsForAnalysis(Playlist playlist) {
+            if (samplePlaylist == null || !playlist.getPlaylistId().equals(samplePlaylist.getPlaylistId())) {
+                return playlist.getSongs();
+            }
+            JsonArray songsWithLyrics = new JsonArray();
+            songsWithLyrics.add(createSong("Riptide", "Vance Joy"));
+            songsWithLyrics.add(createSong("Let Her Go", "Passenger"));
+            songsWithLyrics.add(createSong("Hey There Delilah", "Plain White T's"));
+            return songsWithLyrics;
+        }
+
+        /**
+         * Analyzes the sample playlist and every playlist fetched from Spotify in one job,
+         * shown in a dialog that stops the job when it is closed.
+         */
+        private void analyzeAllPlaylists() {
+            if (analyzeLibraryController == null) {
+                System.err.println("AnalyzeLibraryController is null, analyze all does not work.");
+                return;
+            }
+
+            List<Playlist> playlists = new ArrayList<>();
+            if (samplePlaylist != null) {
+                playlists.add(new Playlist(samplePlaylist.getPlaylistId(), samplePlaylist.getPlaylistName(),
+                        songsForAnalysis(samplePlaylist)));
+            }
+            for (Playlist playlist : loggedInViewModel.getPlaylists()) {
+                if (samplePlaylist == null || !playlist.getPlaylistId().equals(samplePlaylist.getPlaylistId())) {
+                    playlists.add(playlist);
+                }
+            }
+
+            analyzeLibraryViewModel.getState().start(playlists.size());
+            analyzeLibraryViewModel.firePropertyChanged();
+
+            LibraryAnalysisView libraryView = new LibraryAnalysisView(analyzeLibraryViewModel);
+            JDialog libraryDialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Library Analysis");
+            libraryDialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+            libraryDialog.setContentPane(libraryView);
+            libraryDialog.pack();
+            libraryDialog.setLocationRelativeTo(this);
+            libraryDialog.setVisible(true);
+
+            SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                @Override
+                protected Void doInBackground() {
+                    analyzeLibraryController.execute(playlists);
+                    return null;
+                }
+            };
+            worker.execute();
+
+            // Closing the dialog interrupts the job, which cancels its lookups and requests
+            libraryDialog.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent event) {
+                    worker.cancel(true);
+                    analyzeLibraryViewModel.removePropertyChangeListener(libraryView);
+                }
+            });
+        }
+
         // ---------- Wiring from AppBuilder ----------
     
             public void setAnalysisController(AnalysisController controller) { // Added
                 this.analysisController = controller;
             }
         
+            /**
+             * Wires the Analyze All button.
+             * @param controller the controller of the Analyze Library use case
+             * @param viewModel the view model its presenter updates
+             */
+            public void setAnalyzeLibraryController(AnalyzeLibraryController controller,
+                                                    AnalyzeLibraryViewModel viewModel) {
+                this.analyzeLibraryController = controller;
+                this.analyzeLibraryViewModel = viewModel;
+            }
+
             public void setLogoutController(LogoutController controller) {
                 this.logoutController = controller;
             }
@@ -13,6 +13,8 @@ public class SentimentPanel extends JPanel {
     private final JLabel sentimentWordLabel;
     private final JTextArea sentimentExplanationArea;
     private final JProgressBar loadingBar;
+    private final JLabel compactionLabel;
+    private final JLabel stageTimingsLabel;
 
     public SentimentPanel() {
         // Set up the panel layout
@@ -50,7 +52,53 @@ public class SentimentPanel extends JPanel {
 
         this.add(blurbTitle);
         this.add(scrollPane);
-        this.add(Box.createVerticalStrut(15));
+        this.add(Box.createVerticalStrut(5));
+
+        // 4. How much repeated lyrics were trimmed before analysis
+        compactionLabel = new JLabel(" ");
+        compactionLabel.setFont(new Font("SansSerif", Font.ITALIC, 11));
+        compactionLabel.setForeground(Color.GRAY);
+        this.add(compactionLabel);
+
+        stageTimingsLabel = new JLabel(" ");
+        stageTimingsLabel.setFont(new Font("SansSerif", Font.ITALIC, 11));
+        stageTimingsLabel.setForeground(Color.GRAY);
+        this.add(stageTimingsLabel);
+        this.add(Box.createVerticalStrut(10));
+    }
+
+    /**
+     * Shows how much the lyrics were shortened before being analyzed.
+     * @param bytesSaved the bytes of lyrics removed
+     * @param tokensSaved the approximate number of prompt tokens saved
+     */
+    public void setCompactionSavings(long bytesSaved, long tokensSaved) {
+        if (bytesSaved <= 0) {
+            compactionLabel.setText(" ");
+            return;
+        }
+        compactionLabel.setText("Repeated lyrics trimmed: " + bytesSaved + " bytes (~" + tokensSaved + " tokens) saved");
+    }
+
+    /**
+     * Shows how long each stage of the analysis took.
+     * @param stageTimings the time per stage, or null to show nothing
+     */
+    public void setStageTimings(String stageTimings) {
+        stageTimingsLabel.setText(stageTimings == null ? " " : stageTimings);
+    }
+
+    /**
+     * Makes the progress bar show how far the analysis has come instead of just that it is running.
+     * @param percent how far the analysis has come, from 0 to 100
+     * @param text the text shown on the bar, or null to keep the current text
+     */
+    public void setProgress(int percent, String text) {
+        loadingBar.setIndeterminate(false);
+        loadingBar.setValue(percent);
+        if (text != null) {
+            loadingBar.setString(text);
+        }
     }
 
     /**
@@ -65,11 +113,31 @@ public class SentimentPanel extends JPanel {
         }
 
         // Display the new Sentiment fields (using the updated getters from the Entity)
-        sentimentWordLabel.setText("Sentiment Word: " + result.getSentimentWord());
+        sentimentWordLabel.setText("Sentiment Word: " + result.getSentimentWord()
+                + (result.isEstimate() ? " (estimate)" : ""));
         sentimentExplanationArea.setText(result.getSentimentExplanation());
         sentimentExplanationArea.setCaretPosition(0); // Scroll to top
     }
 
+    /**
+     * Shows the part of a result received so far. When it continues the explanation already
+     * shown, only the new text is appended, so the text grows in place as it arrives.
+     * @param partial The result received so far.
+     */
+    public void appendPartialResult(SentimentResult partial) {
+        final String word = partial.getSentimentWord();
+        sentimentWordLabel.setText("Sentiment Word: " + (word.isEmpty() ? "..." : word));
+
+        final String shown = sentimentExplanationArea.getText();
+        final String received = partial.getSentimentExplanation();
+        if (received.startsWith(shown)) {
+            sentimentExplanationArea.append(received.substring(shown.length()));
+        }
+        else {
+            sentimentExplanationArea.setText(received);
+        }
+    }
+
     /**
      * Sets the loading state of the panel, showing/hiding the progress bar.
      * @param isLoading True to show loading state, false to hide.
@@ -77,8 +145,33 @@ public class SentimentPanel extends JPanel {
     public void setLoading(boolean isLoading) {
         loadingBar.setVisible(isLoading);
 
+        loadingBar.setIndeterminate(true);
+        loadingBar.setString("Waiting for Sentiment analysis...");
+
         // Hide other elements when loading
         sentimentWordLabel.setVisible(!isLoading);
         sentimentExplanationArea.getParent().setVisible(!isLoading); // Parent is the JScrollPane
     }
+
+    /**
+     * Shows an early estimate while the full analysis is still running:
+     * the result stays visible and the progress bar says the final result is on its way.
+     */
+    public void setProvisional() {
+        loadingBar.setVisible(true);
+        loadingBar.setString("Quick estimate shown, waiting for the full analysis...");
+        sentimentWordLabel.setVisible(true);
+        sentimentExplanationArea.getParent().setVisible(true);
+    }
+
+    /**
+     * Shows the full analysis while it is being received:
+     * the text stays visible and grows, and the progress bar says more is on its way.
+     */
+    public void setStreaming() {
+        loadingBar.setVisible(true);
+        loadingBar.setString("Receiving the analysis...");
+        sentimentWordLabel.setVisible(true);
+        sentimentExplanationArea.getParent().setVisible(true);
+    }
 }
\ No newline at end of file
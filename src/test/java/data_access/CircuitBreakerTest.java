@@ -0,0 +1,84 @@
+package data_access;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterFailuresInARowAndRejectsWhileOpenTest() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(30), clock);
+        List<CircuitBreaker.State> changes = new ArrayList<>();
+        breaker.addStateListener(changes::add);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+        }
+        // a success in between starts the count again
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(List.of(CircuitBreaker.State.OPEN), changes);
+        assertFalse(breaker.allowRequest());
+        clock.advance(Duration.ofSeconds(29));
+        assertFalse(breaker.allowRequest());
+        assertEquals(1000, breaker.getRemainingOpenMillis());
+    }
+
+    @Test
+    void halfOpenLetsOneTrialThroughTest() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = openBreaker(clock);
+
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(breaker.allowRequest(), "The first request after the open duration is the trial");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest(), "Only one trial may be in flight");
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void releasedTrialLetsAnotherTrialThroughTest() {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = openBreaker(clock);
+        clock.advance(Duration.ofSeconds(30));
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        // the trial was abandoned, which says nothing about the service
+        breaker.release();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    private static CircuitBreaker openBreaker(ManualClock clock) {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), clock);
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,60 @@
+package data_access;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import entity.PlaylistFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DBPlaylistDataAccessObjectTest {
+
+    @Test
+    void everyLookupRejectedFailsTest() {
+        DBPlaylistDataAccessObject dao = dao((artist, title) ->
+                CompletableFuture.completedFuture(LyricsLookup.rejected()));
+
+        IOException error = assertThrows(IOException.class, () -> dao.getLyrics(songs(3)));
+        assertTrue(error.getMessage().contains("unavailable"));
+    }
+
+    @Test
+    void someLookupsRejectedStillReturnsWhatWasFoundTest() throws IOException {
+        DBPlaylistDataAccessObject dao = dao((artist, title) -> CompletableFuture.completedFuture(
+                "Song 1".equals(title) ? LyricsLookup.found("Hello hello") : LyricsLookup.rejected()));
+
+        JsonArray found = dao.getLyrics(songs(3));
+        assertEquals(1, found.size());
+        assertEquals("Hello hello", found.get(0).getAsJsonObject().get("lyrics").getAsString());
+    }
+
+    @Test
+    void noLyricsWithoutRejectionsIsNotAFailureTest() throws IOException {
+        DBPlaylistDataAccessObject dao = dao((artist, title) ->
+                CompletableFuture.completedFuture(LyricsLookup.notFound()));
+
+        assertEquals(0, dao.getLyrics(songs(3)).size());
+    }
+
+    private static DBPlaylistDataAccessObject dao(LyricsProvider provider) {
+        return new DBPlaylistDataAccessObject(new PlaylistFactory(), provider,
+                new LyricsCache(null, 100, 0, Duration.ofDays(1)),
+                new LyricsMissIndex(null, 100, Duration.ofDays(7)),
+                new RandomSamplingStrategy(), 2);
+    }
+
+    private static JsonArray songs(int count) {
+        JsonArray songs = new JsonArray();
+        for (int i = 1; i <= count; i++) {
+            JsonObject song = new JsonObject();
+            song.addProperty("artist", "Artist " + i);
+            song.addProperty("title", "Song " + i);
+            songs.add(song);
+        }
+        return songs;
+    }
+}
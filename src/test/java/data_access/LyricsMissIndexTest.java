@@ -0,0 +1,55 @@
+package data_access;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LyricsMissIndexTest {
+
+    @Test
+    void expiredMissIsLookedUpAgainTest() {
+        ManualClock clock = new ManualClock();
+        LyricsMissIndex index = new LyricsMissIndex(null, 100, Duration.ofDays(7), clock);
+
+        index.recordMiss("Nobody", "Instrumental");
+        assertTrue(index.isKnownMiss("Nobody", "Instrumental"));
+        assertTrue(index.isKnownMiss("Nobody", "Instrumental (Remastered 2011)"));
+
+        clock.advance(Duration.ofDays(7).plusMillis(1));
+        assertFalse(index.isKnownMiss("Nobody", "Instrumental"),
+                "An expired miss should be looked up again");
+    }
+
+    @Test
+    void songsNeverRecordedAreNotSkippedTest() {
+        LyricsMissIndex index = new LyricsMissIndex(null, 100, Duration.ofDays(7), new ManualClock());
+
+        for (int i = 0; i < 50; i++) {
+            index.recordMiss("Nobody", "Instrumental " + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertFalse(index.isKnownMiss("Somebody", "Song " + i));
+        }
+        assertTrue(index.isKnownMiss("Nobody", "Instrumental 49"));
+    }
+
+    @Test
+    void fullIndexForgetsTheMissClosestToExpiringTest() {
+        ManualClock clock = new ManualClock();
+        LyricsMissIndex index = new LyricsMissIndex(null, 2, Duration.ofDays(7), clock);
+
+        index.recordMiss("Nobody", "First");
+        clock.advance(Duration.ofMinutes(1));
+        index.recordMiss("Nobody", "Second");
+        clock.advance(Duration.ofMinutes(1));
+        // recorded again, so it now expires last
+        index.recordMiss("Nobody", "First");
+        index.recordMiss("Nobody", "Third");
+
+        assertTrue(index.isKnownMiss("Nobody", "First"));
+        assertFalse(index.isKnownMiss("Nobody", "Second"));
+        assertTrue(index.isKnownMiss("Nobody", "Third"));
+    }
+}
@@ -0,0 +1,101 @@
+package data_access;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientLyricsProviderTest {
+
+    @Test
+    void rejectedWithoutRequestWhileOpenTest() throws Exception {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(30), clock);
+        AtomicInteger requests = new AtomicInteger();
+        LyricsProvider failing = (artist, title) -> {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture(LyricsLookup.failed());
+        };
+        ResilientLyricsProvider provider = new ResilientLyricsProvider(failing,
+                new TokenBucketRateLimiter(10, 10), breaker, Duration.ofSeconds(1));
+
+        assertEquals(LyricsLookup.Status.FAILED, provider.lookup("A", "1").get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(LyricsLookup.Status.FAILED, provider.lookup("A", "2").get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        CompletableFuture<LyricsLookup> refused = provider.lookup("A", "3");
+        assertTrue(refused.isDone(), "A refused lookup should fail at once");
+        assertEquals(LyricsLookup.Status.REJECTED, refused.get().getStatus());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void rateLimitedLookupIsRejectedAndReleasesTheTrialTest() throws Exception {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), clock);
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        clock.advance(Duration.ofSeconds(30));
+
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 0.01);
+        assertEquals(0, limiter.reserve(Duration.ZERO));
+        LyricsProvider delegate = (artist, title) -> {
+            fail("A rate-limited lookup should not be sent");
+            return null;
+        };
+        ResilientLyricsProvider provider = new ResilientLyricsProvider(delegate, limiter, breaker,
+                Duration.ofSeconds(1));
+
+        assertEquals(LyricsLookup.Status.REJECTED, provider.lookup("A", "1").get().getStatus());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest(), "The trial taken by the refused lookup should be released");
+    }
+
+    @Test
+    void cancelledTrialIsReleasedTest() throws Exception {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), clock);
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        clock.advance(Duration.ofSeconds(30));
+
+        CountDownLatch sent = new CountDownLatch(1);
+        AtomicReference<CompletableFuture<LyricsLookup>> request = new AtomicReference<>();
+        LyricsProvider stalled = (artist, title) -> {
+            CompletableFuture<LyricsLookup> never = new CompletableFuture<>();
+            request.set(never);
+            sent.countDown();
+            return never;
+        };
+        ResilientLyricsProvider provider = new ResilientLyricsProvider(stalled,
+                new TokenBucketRateLimiter(1, 1), breaker, Duration.ofSeconds(1));
+
+        CompletableFuture<LyricsLookup> lookup = provider.lookup("A", "1");
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        assertFalse(breaker.allowRequest(), "The trial is in flight");
+
+        lookup.cancel(true);
+        // the request may be sent and linked to the lookup just after the cancel, on another thread
+        assertTrue(eventually(() -> request.get().isCancelled()), "Cancelling the lookup should cancel its request");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(eventually(breaker::allowRequest), "A cancelled trial says nothing about the service");
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package data_access;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void burstGoesThroughAtOnceTest() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.reserve(Duration.ZERO));
+        }
+    }
+
+    @Test
+    void waitBeyondTheLimitIsRefusedTest() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1);
+        assertEquals(0, limiter.reserve(Duration.ZERO));
+
+        // the next token is about a second away
+        assertEquals(-1, limiter.reserve(Duration.ofMillis(100)));
+        long wait = limiter.reserve(Duration.ofSeconds(5));
+        assertTrue(wait > Duration.ofMillis(500).toNanos() && wait <= Duration.ofSeconds(1).toNanos(),
+                "Expected to wait for about a second, got " + wait + " ns");
+        // that token is taken, so the one after is about two seconds away
+        assertEquals(-1, limiter.reserve(Duration.ofSeconds(1)));
+    }
+}
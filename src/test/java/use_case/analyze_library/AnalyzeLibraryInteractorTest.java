@@ -0,0 +1,347 @@
+package use_case.analyze_library;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import data_access.AnalysisStatsDataAccessObject;
+import entity.Playlist;
+import entity.SentimentResult;
+import entity.SentimentResultFactory;
+import org.junit.jupiter.api.Test;
+import use_case.analyze_playlist.SentimentDataAccessInterface;
+import use_case.analyze_playlist.SongSentimentDataAccessInterface;
+import use_case.analyze_playlist.SpotifyPlaylistDataAccessInterface;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyzeLibraryInteractorTest {
+
+    private static Playlist playlist(String id, String name, String songs) {
+        return new Playlist(id, name, JsonParser.parseString(songs).getAsJsonArray());
+    }
+
+    private static SpotifyPlaylistDataAccessInterface lyricsDAO(List<String> lookedUp) {
+        return new SpotifyPlaylistDataAccessInterface() {
+            @Override
+            public JsonArray getLyrics(JsonArray songs) {
+                assertEquals(1, songs.size());
+                JsonObject song = songs.get(0).getAsJsonObject().deepCopy();
+                String title = song.get("title").getAsString();
+                synchronized (lookedUp) {
+                    lookedUp.add(title);
+                }
+                JsonArray found = new JsonArray();
+                if (!title.equals("Instrumental")) {
+                    song.addProperty("lyrics", "Lyrics of " + title);
+                    found.add(song);
+                }
+                return found;
+            }
+
+            @Override
+            public String getStringLyrics(JsonArray songsInfo) {
+                return songsInfo.get(0).getAsJsonObject().get("lyrics").getAsString();
+            }
+        };
+    }
+
+    @Test
+    void sharedSongsLookedUpAndAnalyzedOnceTest() {
+        Playlist road = playlist("1", "Road Trip", "["
+                + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"},"
+                + "{\"artist\":\"Queen\",\"title\":\"Bohemian Rhapsody\"}]");
+        Playlist party = playlist("2", "Party", "["
+                + "{\"artist\":\"Queen\",\"title\":\"Bohemian Rhapsody\"},"
+                + "{\"artist\":\"Adele\",\"title\":\"Hello\"},"
+                + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}]");
+        Playlist stored = playlist("3", "Already Known", "["
+                + "{\"artist\":\"Adele\",\"title\":\"Hello\"}]");
+
+        List<String> lookedUp = new ArrayList<>();
+        List<String> analyzed = new ArrayList<>();
+        AtomicInteger batches = new AtomicInteger();
+        SentimentDataAccessInterface mockSentimentDAO = new SentimentDataAccessInterface() {
+            @Override
+            public SentimentResult analyzeSentiment(String lyrics) {
+                fail("Songs should be analyzed in batches");
+                return null;
+            }
+
+            @Override
+            public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) {
+                batches.incrementAndGet();
+                List<SentimentResult> results = new ArrayList<>();
+                for (String lyrics : lyricsList) {
+                    analyzed.add(lyrics);
+                    results.add(new SentimentResult(lyrics.contains("Rhapsody") ? "Dramatic" : "Joyful",
+                            "Explanation of " + lyrics));
+                }
+                return results;
+            }
+        };
+
+        Map<String, SentimentResult> songStore = new HashMap<>();
+        songStore.put("Adele/Hello", new SentimentResult("Longing", "Stored earlier"));
+        SongSentimentDataAccessInterface mockSongSentimentDAO = new SongSentimentDataAccessInterface() {
+            @Override
+            public SentimentResult getSongSentiment(String artist, String title) {
+                return songStore.get(artist + "/" + title);
+            }
+
+            @Override
+            public void saveSongSentiment(String artist, String title, SentimentResult result) {
+                songStore.put(artist + "/" + title, result);
+            }
+        };
+
+        Map<String, AnalyzeLibraryPlaylistOutputData> presented = new HashMap<>();
+        List<AnalyzeLibraryProgressData> progress = new ArrayList<>();
+        AnalyzeLibraryOutputData[] summary = {null};
+        AnalyzeLibraryOutputBoundary mockPresenter = new AnalyzeLibraryOutputBoundary() {
+            @Override
+            public void prepareProgressView(AnalyzeLibraryProgressData progressData) {
+                progress.add(progressData);
+            }
+
+            @Override
+            public void preparePlaylistView(AnalyzeLibraryPlaylistOutputData outputData) {
+                assertNull(summary[0], "Playlists should be presented before the summary");
+                presented.put(outputData.getPlaylistName(), outputData);
+            }
+
+            @Override
+            public void preparePlaylistFailView(String playlistName, String error) {
+                fail("Unexpected playlist failure: " + error);
+            }
+
+            @Override
+            public void prepareSuccessView(AnalyzeLibraryOutputData outputData) {
+                summary[0] = outputData;
+            }
+
+            @Override
+            public void prepareFailView(String error) {
+                fail("Unexpected failure: " + error);
+            }
+        };
+
+        AtomicInteger analyzedCount = new AtomicInteger();
+        AnalyzeLibraryInteractor interactor = new AnalyzeLibraryInteractor(
+                new SentimentResultFactory(),
+                mockSentimentDAO,
+                mockSongSentimentDAO,
+                lyricsDAO(lookedUp),
+                new AnalysisStatsDataAccessObject("test_stats.json") {
+                    @Override
+                    public void incrementAnalyzedPlaylistsCount() {
+                        analyzedCount.incrementAndGet();
+                    }
+                },
+                mockPresenter,
+                10, 16, 2
+        );
+        interactor.execute(new AnalyzeLibraryInputData(List.of(road, party, stored)));
+
+        // each shared song once; the stored one not at all
+        assertEquals(2, lookedUp.size());
+        assertTrue(lookedUp.containsAll(List.of("Diamonds", "Bohemian Rhapsody")));
+        assertEquals(1, batches.get());
+        assertEquals(2, analyzed.size());
+
+        assertEquals(3, presented.size());
+        assertEquals(2, presented.get("Road Trip").getSongsAnalyzed());
+        assertEquals(3, presented.get("Party").getSongsAnalyzed());
+        assertEquals("Longing", presented.get("Already Known").getOverallCategory());
+        assertEquals(3, analyzedCount.get());
+        assertEquals("Dramatic", songStore.get("Queen/Bohemian Rhapsody").getSentimentWord());
+
+        assertEquals(3, summary[0].getPlaylistsAnalyzed());
+        assertEquals(0, summary[0].getPlaylistsFailed());
+        assertEquals(3, summary[0].getDistinctSongs());
+        assertEquals(3, summary[0].getSharedSongs());
+        assertEquals(2, summary[0].getSongsAnalyzed());
+
+        AnalyzeLibraryProgressData last = progress.get(progress.size() - 1);
+        assertEquals(3, last.getSongsResolved());
+        assertEquals(3, last.getDistinctSongs());
+        assertEquals(2, last.getLyricsLookedUp());
+        assertEquals(3, last.getPlaylistsDone());
+    }
+
+    @Test
+    void variantsOfOneSongLookedUpOnceTest() {
+        Playlist road = playlist("1", "Road Trip", "[{\"artist\":\"Adele\",\"title\":\"Hello (feat. Someone)\"}]");
+        Playlist party = playlist("2", "Party", "[{\"artist\":\"Adele\",\"title\":\"Hello - Remastered 2016\"}]");
+
+        List<String> lookedUp = new ArrayList<>();
+        AnalyzeLibraryOutputData[] summary = {null};
+        AnalyzeLibraryOutputBoundary mockPresenter = new AnalyzeLibraryOutputBoundary() {
+            @Override
+            public void prepareProgressView(AnalyzeLibraryProgressData progressData) {
+            }
+
+            @Override
+            public void preparePlaylistView(AnalyzeLibraryPlaylistOutputData outputData) {
+            }
+
+            @Override
+            public void preparePlaylistFailView(String playlistName, String error) {
+                fail("Unexpected playlist failure: " + error);
+            }
+
+            @Override
+            public void prepareSuccessView(AnalyzeLibraryOutputData outputData) {
+                summary[0] = outputData;
+            }
+
+            @Override
+            public void prepareFailView(String error) {
+                fail("Unexpected failure: " + error);
+            }
+        };
+
+        AnalyzeLibraryInteractor interactor = new AnalyzeLibraryInteractor(
+                new SentimentResultFactory(),
+                new SentimentDataAccessInterface() {
+                    @Override
+                    public SentimentResult analyzeSentiment(String lyrics) {
+                        return new SentimentResult("Longing", "Explanation");
+                    }
+
+                    @Override
+                    public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) {
+                        assertEquals(1, lyricsList.size());
+                        return List.of(new SentimentResult("Longing", "Explanation"));
+                    }
+                },
+                null,
+                lyricsDAO(lookedUp),
+                new AnalysisStatsDataAccessObject("test_stats.json") {
+                    @Override
+                    public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                },
+                mockPresenter,
+                10, 16, 2
+        );
+        interactor.execute(new AnalyzeLibraryInputData(List.of(road, party)));
+        interactor.close();
+
+        assertEquals(1, lookedUp.size());
+        assertEquals(1, summary[0].getDistinctSongs());
+        assertEquals(1, summary[0].getSharedSongs());
+        assertEquals(2, summary[0].getPlaylistsAnalyzed());
+    }
+
+    @Test
+    void playlistWithoutLyricsOrAnalysisFailsAloneTest() {
+        Playlist quiet = playlist("1", "Quiet", "[{\"artist\":\"Nobody\",\"title\":\"Instrumental\"}]");
+        Playlist loud = playlist("2", "Loud", "[{\"artist\":\"Queen\",\"title\":\"We Will Rock You\"}]");
+        Playlist empty = playlist("3", "Empty", "[]");
+
+        SentimentDataAccessInterface failingSentimentDAO = (lyrics) -> {
+            throw new IOException("Gemini API Error (Status: 503)");
+        };
+
+        Map<String, String> failures = new HashMap<>();
+        AnalyzeLibraryOutputData[] summary = {null};
+        AnalyzeLibraryOutputBoundary mockPresenter = new AnalyzeLibraryOutputBoundary() {
+            @Override
+            public void prepareProgressView(AnalyzeLibraryProgressData progressData) {
+            }
+
+            @Override
+            public void preparePlaylistView(AnalyzeLibraryPlaylistOutputData outputData) {
+                fail("No playlist can be analyzed");
+            }
+
+            @Override
+            public void preparePlaylistFailView(String playlistName, String error) {
+                failures.put(playlistName, error);
+            }
+
+            @Override
+            public void prepareSuccessView(AnalyzeLibraryOutputData outputData) {
+                summary[0] = outputData;
+            }
+
+            @Override
+            public void prepareFailView(String error) {
+                fail("The job itself should not fail");
+            }
+        };
+
+        AnalyzeLibraryInteractor interactor = new AnalyzeLibraryInteractor(
+                new SentimentResultFactory(),
+                failingSentimentDAO,
+                null,
+                lyricsDAO(new ArrayList<>()),
+                new AnalysisStatsDataAccessObject("test_stats.json") {
+                    @Override
+                    public void incrementAnalyzedPlaylistsCount() {
+                        fail("A failed playlist should not count as an analysis");
+                    }
+                },
+                mockPresenter,
+                10, 16, 1
+        );
+        interactor.execute(new AnalyzeLibraryInputData(List.of(quiet, loud, empty)));
+
+        assertEquals("No lyrics found", failures.get("Quiet"));
+        assertEquals("Failed to connect to the sentiment analysis service: Gemini API Error (Status: 503)",
+                failures.get("Loud"));
+        assertEquals("Playlist is empty", failures.get("Empty"));
+        assertEquals(0, summary[0].getPlaylistsAnalyzed());
+        assertEquals(3, summary[0].getPlaylistsFailed());
+    }
+
+    @Test
+    void noPlaylistsTest() {
+        String[] error = {null};
+        AnalyzeLibraryOutputBoundary mockPresenter = new AnalyzeLibraryOutputBoundary() {
+            @Override
+            public void prepareProgressView(AnalyzeLibraryProgressData progressData) {
+                fail("Nothing should be analyzed");
+            }
+
+            @Override
+            public void preparePlaylistView(AnalyzeLibraryPlaylistOutputData outputData) {
+                fail("Nothing should be analyzed");
+            }
+
+            @Override
+            public void preparePlaylistFailView(String playlistName, String failure) {
+                fail("Nothing should be analyzed");
+            }
+
+            @Override
+            public void prepareSuccessView(AnalyzeLibraryOutputData outputData) {
+                fail("Nothing should be analyzed");
+            }
+
+            @Override
+            public void prepareFailView(String failure) {
+                error[0] = failure;
+            }
+        };
+
+        AnalyzeLibraryInteractor interactor = new AnalyzeLibraryInteractor(
+                new SentimentResultFactory(),
+                (lyrics) -> null,
+                null,
+                lyricsDAO(new ArrayList<>()),
+                new AnalysisStatsDataAccessObject("test_stats.json"),
+                mockPresenter,
+                10, 16, 1
+        );
+        interactor.execute(new AnalyzeLibraryInputData(List.of()));
+
+        assertEquals("There are no playlists to analyze.", error[0]);
+    }
+}
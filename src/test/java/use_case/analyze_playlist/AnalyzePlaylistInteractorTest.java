@@ -1,6 +1,7 @@
 package use_case.analyze_playlist;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import data_access.AnalysisStatsDataAccessObject;
 import entity.PlaylistFactory;
@@ -9,8 +10,14 @@ import entity.SentimentResultFactory;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -415,4 +422,878 @@ class AnalyzePlaylistInteractorTest {
             );
             interactor.execute(inputData);
         }
+    
+
+        @Test
+        void lyricsServiceUnavailableTest() {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) throws IOException {
+                    throw new IOException("The lyrics service is unavailable right now");
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) {
+                    fail("Lyrics should not be joined when none were fetched");
+                    return null;
+                }
+            };
+
+            SentimentDataAccessInterface mockSentimentDAO = (lyrics) -> {
+                fail("Sentiment analysis should not be called without lyrics");
+                return null;
+            };
+
+            final boolean[] failCalled = {false};
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData data) {
+                    fail("Should not succeed");
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    assertEquals("Failed to fetch lyrics: The lyrics service is unavailable right now", error);
+                    failCalled[0] = true;
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() {
+                            fail("A failed lookup should not count as an analysis");
+                        }
+                    }
+            );
+            interactor.execute(inputData);
+            assertTrue(failCalled[0]);
+        }
+    
+
+        @Test
+        void lyricsCompactedBeforeAnalysisTest() {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+            String rawLyrics = "Paroles de la chanson Diamonds par Rihanna\r\n"
+                    + "[Chorus]\nShine bright like a diamond\nWe're beautiful like diamonds in the sky\n\n"
+                    + "[Verse 1]\nFind light in the beautiful sea\n\n"
+                    + "[Chorus]\nShine bright like a diamond\nWe're beautiful like diamonds in the sky (x2)";
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    JsonArray result = new JsonArray();
+                    JsonObject song = new JsonObject();
+                    song.addProperty("artist", "Rihanna");
+                    song.addProperty("title", "Diamonds");
+                    song.addProperty("lyrics", rawLyrics);
+                    result.add(song);
+                    return result;
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) {
+                    return songs.get(0).getAsJsonObject().get("lyrics").getAsString() + "\n";
+                }
+            };
+
+            SentimentDataAccessInterface mockSentimentDAO = (lyrics) -> {
+                assertEquals("Shine bright like a diamond\nWe're beautiful like diamonds in the sky\n\n"
+                        + "Find light in the beautiful sea\n", lyrics);
+                return new SentimentResult("Positive", "Happy playlist");
+            };
+
+            final boolean[] successCalled = {false};
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    assertTrue(outputData.getLyricsBytesSaved() > 0);
+                    assertEquals((outputData.getLyricsBytesSaved() + 3) / 4, outputData.getEstimatedTokensSaved());
+                    successCalled[0] = true;
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                    }
+            );
+            interactor.execute(inputData);
+            assertTrue(successCalled[0]);
+        }
+    
+
+        @Test
+        void songsWithOnlyMarkersAreNotAnalyzedTest() {
+            String playlist = "[" + "{\"artist\":\"Nobody\",\"title\":\"Intro\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    JsonObject song = new JsonObject();
+                    song.addProperty("artist", "Nobody");
+                    song.addProperty("title", "Intro");
+                    song.addProperty("lyrics", "[Instrumental]\n\n[Outro]\n");
+                    JsonArray songsInfo = new JsonArray();
+                    songsInfo.add(song);
+                    return songsInfo;
+                }
+
+                @Override
+                public String getStringLyrics(JsonArray songs) {
+                    fail("A song without lyrics should not be sent");
+                    return null;
+                }
+            };
+
+            String[] error = {null};
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    fail("Should not succeed");
+                }
+
+                @Override
+                public void prepareFailView(String failure) {
+                    error[0] = failure;
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    (lyrics) -> {
+                        fail("A song without lyrics should not be analyzed");
+                        return null;
+                    },
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() {
+                            fail("Nothing was analyzed");
+                        }
+                    }
+            );
+            interactor.execute(inputData);
+            interactor.close();
+            assertEquals("No lyrics found", error[0]);
+        }
+
+        @Test
+        void perSongModeAnalyzesOnlyNewSongsTest() {
+            String playlist = "["
+                    + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"},"
+                    + "{\"artist\":\"Adele\",\"title\":\"Hello\"}"
+                    + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    String songsInfo = "["
+                            + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\",\"lyrics\":\"Shine bright like a diamond\"},"
+                            + "{\"artist\":\"Adele\",\"title\":\"Hello\",\"lyrics\":\"Hello from the other side\"}"
+                            + "]";
+                    return JsonParser.parseString(songsInfo).getAsJsonArray();
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) {
+                    assertEquals(1, songs.size());
+                    return songs.get(0).getAsJsonObject().get("lyrics").getAsString() + "\n";
+                }
+            };
+
+            final int[] sentimentCalls = {0};
+            SentimentDataAccessInterface mockSentimentDAO = (lyrics) -> {
+                assertEquals("Hello from the other side\n", lyrics);
+                sentimentCalls[0]++;
+                return new SentimentResult("Melancholic", "Longing for the past");
+            };
+
+            Map<String, SentimentResult> stored = new HashMap<>();
+            stored.put("Rihanna/Diamonds", new SentimentResult("Melancholic", "Bittersweet shine"));
+            SongSentimentDataAccessInterface mockSongSentimentDAO = new SongSentimentDataAccessInterface() {
+                @Override
+                public SentimentResult getSongSentiment(String artist, String title) {
+                    return stored.get(artist + "/" + title);
+                }
+
+                @Override
+                public void saveSongSentiment(String artist, String title, SentimentResult result) {
+                    stored.put(artist + "/" + title, result);
+                }
+            };
+
+            final boolean[] successCalled = {false};
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    assertEquals("Melancholic", outputData.getOverallCategory());
+                    assertTrue(outputData.getSummaryText().startsWith("2 of 2 songs"));
+                    assertTrue(outputData.getSummaryText().contains("Diamonds (Melancholic): Bittersweet shine"));
+                    assertTrue(outputData.getSummaryText().contains("Hello (Melancholic): Longing for the past"));
+                    successCalled[0] = true;
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                    },
+                    mockSongSentimentDAO
+            );
+            interactor.execute(inputData);
+            assertTrue(successCalled[0]);
+            assertEquals(1, sentimentCalls[0]);
+            assertNotNull(stored.get("Adele/Hello"));
+        }
+
+        @Test
+        void perSongModeSendsNewSongsInOneBatchTest() {
+            String playlist = "["
+                    + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"},"
+                    + "{\"artist\":\"Adele\",\"title\":\"Hello\"},"
+                    + "{\"artist\":\"Queen\",\"title\":\"Bohemian Rhapsody\"}"
+                    + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    String songsInfo = "["
+                            + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\",\"lyrics\":\"Shine bright like a diamond\"},"
+                            + "{\"artist\":\"Adele\",\"title\":\"Hello\",\"lyrics\":\"Hello from the other side\"},"
+                            + "{\"artist\":\"Queen\",\"title\":\"Bohemian Rhapsody\",\"lyrics\":\"Is this the real life\"}"
+                            + "]";
+                    return JsonParser.parseString(songsInfo).getAsJsonArray();
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) {
+                    return songs.get(0).getAsJsonObject().get("lyrics").getAsString() + "\n";
+                }
+            };
+
+            final int[] batchCalls = {0};
+            SentimentDataAccessInterface mockSentimentDAO = new SentimentDataAccessInterface() {
+                @Override
+                public SentimentResult analyzeSentiment(String combinedLyrics) {
+                    fail("New songs should be sent as one batch");
+                    return null;
+                }
+
+                @Override
+                public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList) {
+                    batchCalls[0]++;
+                    assertEquals(List.of("Hello from the other side\n", "Is this the real life\n"), lyricsList);
+                    return List.of(new SentimentResult("Melancholic", "Longing for the past"),
+                            new SentimentResult("Dramatic", "An operatic confession"));
+                }
+
+                @Override
+                public List<SentimentResult> analyzeSentimentBatch(List<String> lyricsList,
+                                                                   SentimentStreamListener listener) {
+                    if (listener != null) {
+                        listener.onPartialResult("Dramatic", "An operatic");
+                    }
+                    return analyzeSentimentBatch(lyricsList);
+                }
+            };
+
+            Map<String, SentimentResult> stored = new HashMap<>();
+            stored.put("Rihanna/Diamonds", new SentimentResult("Melancholic", "Bittersweet shine"));
+            SongSentimentDataAccessInterface mockSongSentimentDAO = new SongSentimentDataAccessInterface() {
+                @Override
+                public SentimentResult getSongSentiment(String artist, String title) {
+                    return stored.get(artist + "/" + title);
+                }
+
+                @Override
+                public void saveSongSentiment(String artist, String title, SentimentResult result) {
+                    stored.put(artist + "/" + title, result);
+                }
+            };
+
+            final boolean[] successCalled = {false};
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    assertEquals("Melancholic", outputData.getOverallCategory());
+                    assertTrue(outputData.getSummaryText().startsWith("2 of 3 songs"));
+                    assertTrue(outputData.getSummaryText().contains("Bohemian Rhapsody (Dramatic): An operatic confession"));
+                    successCalled[0] = true;
+                }
+
+                @Override
+                public void preparePartialView(AnalyzePlaylistOutputData outputData) {
+                    fail("One song's partial result is not the playlist's");
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                    },
+                    mockSongSentimentDAO
+            );
+            interactor.execute(inputData);
+            assertTrue(successCalled[0]);
+            assertEquals(1, batchCalls[0]);
+            assertEquals("Dramatic", stored.get("Queen/Bohemian Rhapsody").getSentimentWord());
+        }
+
+        @Test
+        void concurrentIdenticalAnalysesShareOneRunTest() throws InterruptedException {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            CountDownLatch lyricsRequested = new CountDownLatch(1);
+            CountDownLatch releaseLyrics = new CountDownLatch(1);
+            AtomicInteger lyricsCalls = new AtomicInteger();
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    lyricsCalls.incrementAndGet();
+                    lyricsRequested.countDown();
+                    try {
+                        releaseLyrics.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    String songsInfo = "["
+                            + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\",\"lyrics\":\"Shine bright like a diamond\"}"
+                            + "]";
+                    return JsonParser.parseString(songsInfo).getAsJsonArray();
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) {
+                    return "Shine bright like a diamond\n";
+                }
+            };
+
+            AtomicInteger sentimentCalls = new AtomicInteger();
+            SentimentDataAccessInterface mockSentimentDAO = (lyrics) -> {
+                sentimentCalls.incrementAndGet();
+                return new SentimentResult("Joyful", "Bright and confident");
+            };
+
+            AtomicInteger successes = new AtomicInteger();
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    assertEquals("Joyful", outputData.getOverallCategory());
+                    successes.incrementAndGet();
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AtomicInteger analyzedCount = new AtomicInteger();
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() {
+                            analyzedCount.incrementAndGet();
+                        }
+                    }
+            );
+
+            Thread first = new Thread(() -> interactor.execute(inputData));
+            first.start();
+            lyricsRequested.await();
+
+            Thread second = new Thread(() -> interactor.execute(inputData));
+            second.start();
+            // the second analysis must be waiting for the first before the first may finish
+            while (second.getState() != Thread.State.WAITING) {
+                assertTrue(second.isAlive(), "The second analysis should wait for the first one");
+                Thread.sleep(1);
+            }
+            releaseLyrics.countDown();
+            first.join();
+            second.join();
+
+            assertEquals(1, lyricsCalls.get());
+            assertEquals(1, sentimentCalls.get());
+            assertEquals(1, analyzedCount.get());
+            assertEquals(2, successes.get());
+        }
+    
+
+        @Test
+        void joinedAnalysisIsPresentedWhatItMissedTest() throws InterruptedException {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    String songsInfo = "["
+                            + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\",\"lyrics\":\"Shine bright like a diamond\"}"
+                            + "]";
+                    return JsonParser.parseString(songsInfo).getAsJsonArray();
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) { return "Shine bright like a diamond\n"; }
+            };
+
+            CountDownLatch streaming = new CountDownLatch(1);
+            CountDownLatch releaseResult = new CountDownLatch(1);
+            SentimentDataAccessInterface mockSentimentDAO = new SentimentDataAccessInterface() {
+                @Override
+                public SentimentResult analyzeSentiment(String combinedLyrics) {
+                    fail("The streaming call should be used");
+                    return null;
+                }
+
+                @Override
+                public SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener) {
+                    listener.onPartialResult("Positive", "Happy");
+                    streaming.countDown();
+                    try {
+                        releaseResult.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new SentimentResult("Positive", "Happy playlist");
+                }
+            };
+            SentimentDataAccessInterface mockEstimateDAO = (lyrics) -> new SentimentResult("Joyful", "Quick guess", true);
+
+            List<String> calls = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger progressEvents = new AtomicInteger();
+            Thread[] second = new Thread[1];
+            AtomicInteger progressReplayed = new AtomicInteger();
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareProvisionalView(AnalyzePlaylistOutputData outputData) {
+                    calls.add("provisional: " + outputData.getSummaryText());
+                }
+
+                @Override
+                public void preparePartialView(AnalyzePlaylistOutputData outputData) {
+                    calls.add("partial: " + outputData.getSummaryText());
+                }
+
+                @Override
+                public void prepareProgressView(AnalyzePlaylistProgressData progressData) {
+                    progressEvents.incrementAndGet();
+                    if (Thread.currentThread() == second[0]) {
+                        progressReplayed.incrementAndGet();
+                    }
+                }
+
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    calls.add("success: " + outputData.getSummaryText());
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                    },
+                    null,
+                    mockEstimateDAO
+            );
+
+            Thread first = new Thread(() -> interactor.execute(inputData));
+            first.start();
+            streaming.await();
+            while (progressEvents.get() == 0) {
+                Thread.sleep(1);
+            }
+
+            second[0] = new Thread(() -> interactor.execute(inputData));
+            second[0].start();
+            while (second[0].getState() != Thread.State.WAITING) {
+                assertTrue(second[0].isAlive(), "The second analysis should join the first one");
+                Thread.sleep(1);
+            }
+            // the joining caller is brought up to date before the analysis finishes
+            assertEquals(List.of("provisional: Quick guess", "partial: Happy",
+                    "provisional: Quick guess", "partial: Happy"), calls);
+            assertEquals(1, progressReplayed.get());
+
+            releaseResult.countDown();
+            first.join();
+            second[0].join();
+            interactor.close();
+            assertEquals(List.of("success: Happy playlist", "success: Happy playlist"), calls.subList(4, calls.size()));
+        }
+
+        @Test
+        void provisionalEstimateBeforeFinalResultTest() {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    String songsInfo = "["
+                            + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\",\"lyrics\":\"Shine bright like a diamond\"}"
+                            + "]";
+                    return JsonParser.parseString(songsInfo).getAsJsonArray();
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) { return "Shine bright like a diamond\n"; }
+            };
+
+            List<String> calls = new ArrayList<>();
+            SentimentDataAccessInterface mockSentimentDAO = (lyrics) -> {
+                calls.add("final");
+                return new SentimentResult("Positive", "Happy playlist");
+            };
+            SentimentDataAccessInterface mockEstimateDAO = (lyrics) -> {
+                calls.add("estimate");
+                return new SentimentResult("Joyful", "Quick guess", true);
+            };
+
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareProvisionalView(AnalyzePlaylistOutputData outputData) {
+                    assertEquals("Joyful", outputData.getOverallCategory());
+                    assertTrue(outputData.isEstimate());
+                    calls.add("provisional view");
+                }
+
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    assertEquals("Positive", outputData.getOverallCategory());
+                    assertFalse(outputData.isEstimate());
+                    calls.add("success view");
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                    },
+                    null,
+                    mockEstimateDAO
+            );
+            interactor.execute(inputData);
+            assertEquals(List.of("estimate", "provisional view", "final", "success view"), calls);
+        }
+
+        @Test
+        void partialResultsPresentedWhileStreamingTest() {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    String songsInfo = "["
+                            + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\",\"lyrics\":\"Shine bright like a diamond\"}"
+                            + "]";
+                    return JsonParser.parseString(songsInfo).getAsJsonArray();
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) { return "Shine bright like a diamond\n"; }
+            };
+
+            SentimentDataAccessInterface mockSentimentDAO = new SentimentDataAccessInterface() {
+                @Override
+                public SentimentResult analyzeSentiment(String combinedLyrics) {
+                    fail("The streaming call should be used");
+                    return null;
+                }
+
+                @Override
+                public SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener) {
+                    assertNotNull(listener);
+                    listener.onPartialResult("Positive", "");
+                    listener.onPartialResult("Positive", "Happy");
+                    return new SentimentResult("Positive", "Happy playlist");
+                }
+            };
+
+            List<String> calls = new ArrayList<>();
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void preparePartialView(AnalyzePlaylistOutputData outputData) {
+                    assertEquals("Positive", outputData.getOverallCategory());
+                    assertFalse(outputData.isEstimate());
+                    calls.add("partial: " + outputData.getSummaryText());
+                }
+
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    calls.add("success: " + outputData.getSummaryText());
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                    }
+            );
+            interactor.execute(inputData);
+            assertEquals(List.of("partial: ", "partial: Happy", "success: Happy playlist"), calls);
+        }
+
+        @Test
+        void progressCoalescedAndPresentedBeforeOutcomeTest() {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+            String lyrics = "Shine bright like a diamond";
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    fail("The lookup should report its progress");
+                    return null;
+                }
+
+                @Override
+                public JsonArray getLyrics(JsonArray songs, LyricsProgressListener listener) {
+                    listener.onLookupPlanned(1001, 5);
+                    // a burst of lookups, far more than the presenter should see
+                    for (int i = 0; i < 1000; i++) {
+                        listener.onSongLookedUp(false, 0);
+                    }
+                    listener.onSongLookedUp(true, lyrics.length());
+                    try {
+                        Thread.sleep(3 * AnalyzePlaylistInteractor.PROGRESS_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    JsonObject song = new JsonObject();
+                    song.addProperty("artist", "Rihanna");
+                    song.addProperty("title", "Diamonds");
+                    song.addProperty("lyrics", lyrics);
+                    JsonArray songsInfo = new JsonArray();
+                    songsInfo.add(song);
+                    return songsInfo;
+                }
+
+                @Override
+                public String getStringLyrics(JsonArray songs) { return lyrics + "\n"; }
+            };
+
+            SentimentDataAccessInterface mockSentimentDAO = new SentimentDataAccessInterface() {
+                @Override
+                public SentimentResult analyzeSentiment(String combinedLyrics) {
+                    fail("The streaming call should be used");
+                    return null;
+                }
+
+                @Override
+                public SentimentResult analyzeSentiment(String combinedLyrics, SentimentStreamListener listener) {
+                    listener.onPartialResult("Positive", "Happy");
+                    return new SentimentResult("Positive", "Happy playlist");
+                }
+            };
+
+            List<AnalyzePlaylistProgressData> progress = new ArrayList<>();
+            List<String> calls = new ArrayList<>();
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public synchronized void prepareProgressView(AnalyzePlaylistProgressData progressData) {
+                    progress.add(progressData);
+                    calls.add("progress");
+                }
+
+                @Override
+                public synchronized void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    calls.add("success");
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("Should not fail");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() { /* Do nothing */ }
+                    }
+            );
+            interactor.execute(inputData);
+
+            synchronized (mockPresenter) {
+                assertTrue(progress.size() >= 2, "The lookup and the final progress should be presented");
+                assertTrue(progress.size() <= 6, "Progress should be coalesced, got " + progress.size());
+                assertEquals("success", calls.get(calls.size() - 1));
+                assertEquals("progress", calls.get(calls.size() - 2));
+
+                AnalyzePlaylistProgressData lookup = progress.get(0);
+                assertEquals(AnalyzePlaylistProgressData.Stage.LOOKING_UP_LYRICS, lookup.getStage());
+                assertEquals(1001, lookup.getSongsAttempted());
+                assertEquals(1001, lookup.getSongsToTry());
+                assertEquals(5, lookup.getLyricsWanted());
+
+                AnalyzePlaylistProgressData last = progress.get(progress.size() - 1);
+                assertEquals(AnalyzePlaylistProgressData.Stage.RESPONSE_RECEIVED, last.getStage());
+                assertEquals(1, last.getLyricsFound());
+                assertEquals(lyrics.length(), last.getBytesCollected());
+                assertTrue(last.getLyricsMillis() >= 2 * AnalyzePlaylistInteractor.PROGRESS_INTERVAL_MILLIS);
+            }
+        }
+
+        @Test
+        void cancelledAnalysisIsInterruptedAndNeitherPresentedNorCountedTest() throws InterruptedException {
+            String playlist = "[" + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\"}" + "]";
+            JsonArray songs = JsonParser.parseString(playlist).getAsJsonArray();
+            AnalyzePlaylistInputData inputData = new AnalyzePlaylistInputData("id", "MyPlaylist", songs);
+
+            SpotifyPlaylistDataAccessInterface mockPlaylistDAO = new SpotifyPlaylistDataAccessInterface() {
+                @Override
+                public JsonArray getLyrics(JsonArray songs) {
+                    String songsInfo = "["
+                            + "{\"artist\":\"Rihanna\",\"title\":\"Diamonds\",\"lyrics\":\"Shine bright like a diamond\"}"
+                            + "]";
+                    return JsonParser.parseString(songsInfo).getAsJsonArray();
+                }
+                @Override
+                public String getStringLyrics(JsonArray songs) {
+                    return "Shine bright like a diamond\n";
+                }
+            };
+
+            CountDownLatch requestSent = new CountDownLatch(1);
+            CountDownLatch requestInterrupted = new CountDownLatch(1);
+            SentimentDataAccessInterface mockSentimentDAO = (lyrics) -> {
+                requestSent.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    requestInterrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("API request interrupted.");
+            };
+
+            AnalyzePlaylistOutputBoundary mockPresenter = new AnalyzePlaylistOutputBoundary() {
+                @Override
+                public void prepareSuccessView(AnalyzePlaylistOutputData outputData) {
+                    fail("A cancelled analysis should not be presented");
+                }
+
+                @Override
+                public void prepareFailView(String error) {
+                    fail("A cancelled analysis should not be presented");
+                }
+            };
+
+            AnalyzePlaylistInteractor interactor = new AnalyzePlaylistInteractor(
+                    new PlaylistFactory(),
+                    new SentimentResultFactory(),
+                    mockSentimentDAO,
+                    mockPresenter,
+                    mockPlaylistDAO,
+                    new AnalysisStatsDataAccessObject("test_stats.json") {
+                        @Override
+                        public void incrementAnalyzedPlaylistsCount() {
+                            fail("A cancelled analysis should not count as an analysis");
+                        }
+                    }
+            );
+
+            CompletableFuture<Void> analysis = interactor.executeAsync(inputData);
+            requestSent.await();
+            assertTrue(analysis.cancel(true));
+            requestInterrupted.await();
+            assertTrue(analysis.isCancelled());
+        }
     }